@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+# Benchmark de démarrage : temps jusqu'à la première requête servie et mémoire résidente (RSS),
+# sans optimisation, avec Spring AOT, avec l'archive CDS, puis avec les deux.
+#
+# Prérequis : mvn -Pstartup package (produit le jar, son pré-traitement AOT et target/startup avec l'archive CDS)
+# Usage     : scripts/startup-benchmark.sh [nombre de démarrages par mode, 5 par défaut]
+# Variables : PORT (8080), URL_PATH (/api/parks), JAVA (java), JAVA_OPTS (options communes à tous les modes)
+#
+# Chaque mode est démarré plusieurs fois, la médiane est affichée et toutes les mesures sont écrites dans
+# target/startup-benchmark.csv. Chaque démarrage sert une vraie requête : il faut une base joignable, configurée comme
+# pour l'application (.env, variables DATABASE_URL_DEV/DATABASE_URL_PROD, ou -Dspring.datasource.* dans JAVA_OPTS).
+# La sortie du dernier démarrage est dans target/startup-benchmark.log.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${PORT:-8080}"
+URL_PATH="${URL_PATH:-/api/parks}"
+JAVA="${JAVA:-java}"
+JAVA_OPTS="${JAVA_OPTS:-}"
+TIMEOUT_SECONDS=120
+
+JAR="$(ls target/park-*.jar 2>/dev/null | grep -v -- '-plain' | head -n 1 || true)"
+STARTUP_DIR="target/startup"
+CDS_ARCHIVE="$STARTUP_DIR/application.jsa"
+if [[ -z "$JAR" || ! -f "$CDS_ARCHIVE" ]]; then
+    echo "Missing build output, run: mvn -Pstartup package" >&2
+    exit 1
+fi
+if [[ ! -f .env && -z "${DATABASE_URL_DEV:-}" && -z "${DATABASE_URL_PROD:-}" && "$JAVA_OPTS" != *spring.datasource.url* ]]; then
+    echo "No database configured: add a .env, set DATABASE_URL_DEV/DATABASE_URL_PROD, or pass -Dspring.datasource.* in JAVA_OPTS" >&2
+    exit 1
+fi
+EXTRACTED_JAR="$STARTUP_DIR/$(basename "$JAR")"
+REPORT="target/startup-benchmark.csv"
+LOG="target/startup-benchmark.log"
+
+declare -A MODES=(
+    [baseline]="-jar $JAR"
+    [aot]="-Dspring.aot.enabled=true -jar $JAR"
+    [cds]="-XX:SharedArchiveFile=$CDS_ARCHIVE -jar $EXTRACTED_JAR"
+    [aot+cds]="-XX:SharedArchiveFile=$CDS_ARCHIVE -Dspring.aot.enabled=true -jar $EXTRACTED_JAR"
+)
+ORDER=(baseline aot cds aot+cds)
+
+now_millis() {
+    date +%s%3N
+}
+
+# démarre l'application, attend la première réponse 2xx puis affiche "<millisecondes> <RSS en Ko>"
+measure() {
+    local args="$1"
+    local start pid elapsed rss
+    start="$(now_millis)"
+    # shellcheck disable=SC2086
+    "$JAVA" $JAVA_OPTS -Dserver.port="$PORT" -Dpark.capacity-rollforward.cron=- $args >"$LOG" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT$URL_PATH"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited before serving $URL_PATH, last lines of $LOG:" >&2
+            tail -n 20 "$LOG" >&2
+            return 1
+        fi
+        if (( $(now_millis) - start > TIMEOUT_SECONDS * 1000 )); then
+            kill "$pid"
+            echo "No response after ${TIMEOUT_SECONDS}s" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( $(now_millis) - start ))
+    rss="$(ps -o rss= -p "$pid" | tr -d ' ')"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : int((values[NR / 2] + values[NR / 2 + 1]) / 2) }'
+}
+
+echo "mode,run,first_request_ms,rss_kb" > "$REPORT"
+printf "%-10s %20s %12s\n" "mode" "first request (ms)" "RSS (MB)"
+for mode in "${ORDER[@]}"; do
+    times=()
+    rsses=()
+    for run in $(seq 1 "$RUNS"); do
+        result="$(measure "${MODES[$mode]}")"
+        read -r elapsed rss <<< "$result"
+        times+=("$elapsed")
+        rsses+=("$rss")
+        echo "$mode,$run,$elapsed,$rss" >> "$REPORT"
+    done
+    median_time="$(printf "%s\n" "${times[@]}" | median)"
+    median_rss="$(printf "%s\n" "${rsses[@]}" | median)"
+    printf "%-10s %20d %12d\n" "$mode" "$median_time" "$(( median_rss / 1024 ))"
+done
+echo "Report written to $REPORT"
@@ -0,0 +1,63 @@
+package com.stack.park.jmh;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.stack.park.entities.Park;
+import com.stack.park.entities.ParkCapacityChange;
+
+/**
+ * Jeux de données communs aux benchmarks : un park dont la planification compte n changements d'un jour,
+ * séparés par un jour sans changement (la capacité par défaut s'applique entre deux changements).
+ */
+final class CapacityFixtures {
+
+    static final LocalDate FIRST_DATE = LocalDate.of(2000, 1, 1);
+
+    private CapacityFixtures() {
+    }
+
+    static Park park(int parkId) {
+        Park park = new Park();
+        park.setParkId(parkId);
+        park.setParkName("Benchmark park " + parkId);
+        park.setCapacity(1000);
+        park.setBaseCapacity(1000);
+        park.setOccupiedSpace(0);
+        park.setVersion(0L);
+        return park;
+    }
+
+    static List<ParkCapacityChange> changes(Park park, int count) {
+        List<ParkCapacityChange> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate day = FIRST_DATE.plusDays(2L * i);
+            changes.add(change(park, 500 + i % 500, day, day));
+        }
+        return changes;
+    }
+
+    // nombre de jours couverts par la planification
+    static int span(int count) {
+        return 2 * count;
+    }
+
+    static ParkCapacityChange change(Park park, int capacity, LocalDate startDate, LocalDate endDate) {
+        ParkCapacityChange change = new ParkCapacityChange();
+        change.setPark(park);
+        change.setNewCapacity(capacity);
+        change.setStartDate(startDate);
+        change.setEndDate(endDate);
+        return change;
+    }
+
+    // copie profonde : addCapacityChange raccourcit les changements qu'il reçoit, comme des entités fraîchement chargées
+    static List<ParkCapacityChange> copy(List<ParkCapacityChange> changes) {
+        List<ParkCapacityChange> copies = new ArrayList<>(changes.size());
+        for (ParkCapacityChange change : changes) {
+            copies.add(change(change.getPark(), change.getNewCapacity(), change.getStartDate(), change.getEndDate()));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,137 @@
+package com.stack.park.jmh;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.stack.park.entities.Park;
+import com.stack.park.entities.ParkCapacityChange;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
+import com.stack.park.repositories.ParkRepository;
+import com.stack.park.services.OccupancyService;
+import com.stack.park.services.ParkCache;
+import com.stack.park.services.ParkMetrics;
+import com.stack.park.services.ReadYourWritesTracker;
+import com.stack.park.services.ParkService;
+import com.stack.park.timeline.CapacityTimeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Chemins chauds de ParkService en fonction de la taille de la planification et de la longueur des plages demandées.
+ *
+ * Les repositories sont des mocks qui renvoient les données en mémoire : seul le coût des algorithmes
+ * (index, balayage, découpe) est mesuré, pas la base. Le cache est réel, les lectures sont donc mesurées
+ * sur un cache chaud comme en production ; buildTimeline donne le coût d'un miss.
+ *
+ * Lancer avec : mvn -Pjmh test-compile exec:exec (allocation par opération : gc.alloc.rate.norm)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParkServiceBenchmark {
+
+    private static final int PARK_ID = 1;
+
+    @Param({ "10", "1000", "100000" })
+    public int timelineSize;
+
+    // longueur des plages demandées, seulement pour les benchmarks qui en dépendent
+    @State(Scope.Benchmark)
+    public static class Range {
+        @Param({ "7", "90", "365" })
+        public int rangeDays;
+    }
+
+    private ParkService parkService;
+    private Park park;
+    private List<ParkCapacityChange> changes;
+    private int span;
+
+    @Setup
+    public void setUp() {
+        park = CapacityFixtures.park(PARK_ID);
+        changes = CapacityFixtures.changes(park, timelineSize);
+        park.setCapacityChanges(changes);
+        span = CapacityFixtures.span(timelineSize);
+
+        ParkRepository parkRepository = mock(ParkRepository.class);
+        when(parkRepository.findById(PARK_ID)).thenReturn(Optional.of(park));
+
+        ParkCapacityChangeRepository changeRepository = mock(ParkCapacityChangeRepository.class);
+        when(changeRepository.findByParkId(PARK_ID)).thenReturn(changes);
+        // addCapacityChange ne reçoit que les changements qui chevauchent la nouvelle période, comme la vraie requête
+        when(changeRepository.findByParkIdsBetweenDates(anyCollection(), any(LocalDate.class), any(LocalDate.class)))
+            .thenAnswer(invocation -> CapacityFixtures.copy(overlapping(invocation.getArgument(1), invocation.getArgument(2))));
+
+        parkService = new ParkService();
+        ReflectionTestUtils.setField(parkService, "parkRepository", parkRepository);
+        ReflectionTestUtils.setField(parkService, "parkCapacityChangeRepository", changeRepository);
+        ReflectionTestUtils.setField(parkService, "parkCache", new ParkCache(10, Duration.ofHours(1), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(parkService, "occupancyService", mock(OccupancyService.class));
+        ReflectionTestUtils.setField(parkService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(parkService, "parkMetrics", new ParkMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(parkService, "readYourWritesTracker", new ReadYourWritesTracker("", Duration.ZERO));
+    }
+
+    private List<ParkCapacityChange> overlapping(LocalDate from, LocalDate to) {
+        int first = (int) Math.max(0, (from.toEpochDay() - CapacityFixtures.FIRST_DATE.toEpochDay()) / 2);
+        int last = (int) Math.min(changes.size() - 1, (to.toEpochDay() - CapacityFixtures.FIRST_DATE.toEpochDay()) / 2);
+        return first > last ? List.of() : changes.subList(first, last + 1);
+    }
+
+    private LocalDate randomDate() {
+        return CapacityFixtures.FIRST_DATE.plusDays(ThreadLocalRandom.current().nextInt(span));
+    }
+
+    @Benchmark
+    public Integer getCapacityAtDate() {
+        return parkService.getCapacityAtDate(PARK_ID, randomDate());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getCapacitiesGroupedByInterval(Range range) {
+        LocalDate start = randomDate();
+        return parkService.getCapacitiesGroupedByInterval(PARK_ID, start, start.plusDays(range.rangeDays - 1));
+    }
+
+    // une nouvelle période de rangeDays jours qui recouvre rangeDays / 2 changements existants
+    @Benchmark
+    public Park addCapacityChange(Range range) {
+        LocalDate start = randomDate();
+        ParkCapacityChange change = CapacityFixtures.change(null, 750, start, start.plusDays(range.rangeDays - 1));
+        return parkService.addCapacityChange(PARK_ID, change);
+    }
+
+    // coût d'un miss de cache : construction de l'index à partir de toute la planification
+    @Benchmark
+    public CapacityTimeline buildTimeline() {
+        return CapacityTimeline.of(changes);
+    }
+}
@@ -11,7 +11,8 @@ public class ParkApplication {
 	public static void main(String[] args) {
 		
 		// Charger les variables d'environnement
-		Dotenv dotenv = Dotenv.load();
+		// (.env facultatif : au build AOT et en conteneur, la configuration vient des vraies variables d'environnement)
+		Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
 		
 		// Load variable d'environment
 		String environment = dotenv.get("SPRING_PROFILES_ACTIVE", "dev"); // si "SPRING_PROFILES_ACTIVE" n'est pas défini, utilise "dev" comme valeur par défaut.
@@ -22,21 +23,38 @@ public class ParkApplication {
             System.out.println("Loading production database configuration...");
             System.out.println("URL: " + dotenv.get("DATABASE_URL_PROD"));
             System.out.println("Username: " + dotenv.get("DATABASE_USERNAME_PROD"));
-            System.setProperty("spring.datasource.url", dotenv.get("DATABASE_URL_PROD"));
-            System.setProperty("spring.datasource.username", dotenv.get("DATABASE_USERNAME_PROD"));
-            System.setProperty("spring.datasource.password", dotenv.get("DATABASE_PASSWORD_PROD"));
-            System.setProperty("spring.datasource.driver-class-name", dotenv.get("DATABASE_DRIVER_CLASS_NAME_PROD"));
+            setIfPresent("spring.datasource.url", dotenv.get("DATABASE_URL_PROD"));
+            setIfPresent("spring.datasource.username", dotenv.get("DATABASE_USERNAME_PROD"));
+            setIfPresent("spring.datasource.password", dotenv.get("DATABASE_PASSWORD_PROD"));
+            setIfPresent("spring.datasource.driver-class-name", dotenv.get("DATABASE_DRIVER_CLASS_NAME_PROD"));
         } else {
             System.out.println("Loading development database configuration...");
             System.out.println("URL: " + dotenv.get("DATABASE_URL_DEV"));
             System.out.println("Username: " + dotenv.get("DATABASE_USERNAME_DEV"));
-            System.setProperty("spring.datasource.url", dotenv.get("DATABASE_URL_DEV"));
-            System.setProperty("spring.datasource.username", dotenv.get("DATABASE_USERNAME_DEV"));
-            System.setProperty("spring.datasource.password", dotenv.get("DATABASE_PASSWORD_DEV"));
-            System.setProperty("spring.datasource.driver-class-name", dotenv.get("DATABASE_DRIVER_CLASS_NAME_DEV"));
+            setIfPresent("spring.datasource.url", dotenv.get("DATABASE_URL_DEV"));
+            setIfPresent("spring.datasource.username", dotenv.get("DATABASE_USERNAME_DEV"));
+            setIfPresent("spring.datasource.password", dotenv.get("DATABASE_PASSWORD_DEV"));
+            setIfPresent("spring.datasource.driver-class-name", dotenv.get("DATABASE_DRIVER_CLASS_NAME_DEV"));
+        }
+
+		// Réplica en lecture optionnel : sans DATABASE_REPLICA_URL_*, tout reste sur la base principale
+		String suffix = "prod".equalsIgnoreCase(environment) ? "_PROD" : "_DEV";
+		String replicaUrl = dotenv.get("DATABASE_REPLICA_URL" + suffix);
+		if (replicaUrl != null) {
+            System.out.println("Read replica URL: " + replicaUrl);
+            System.setProperty("park.datasource.replica.url", replicaUrl);
+            setIfPresent("park.datasource.replica.username", dotenv.get("DATABASE_REPLICA_USERNAME" + suffix));
+            setIfPresent("park.datasource.replica.password", dotenv.get("DATABASE_REPLICA_PASSWORD" + suffix));
+            setIfPresent("park.datasource.replica.driver-class-name", dotenv.get("DATABASE_REPLICA_DRIVER_CLASS_NAME" + suffix));
         }
 
 		SpringApplication.run(ParkApplication.class, args);
 	}
 
+	private static void setIfPresent(String property, String value) {
+		if (value != null) {
+			System.setProperty(property, value);
+		}
+	}
+
 }
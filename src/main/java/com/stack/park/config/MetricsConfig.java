@@ -0,0 +1,18 @@
+package com.stack.park.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+    // active @Timed sur les beans Spring (ParkService, ...) ; les contrôleurs et les repositories sont déjà mesurés
+    // par Spring Boot (http.server.requests et spring.data.repository.invocations)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package com.stack.park.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.stack.park.services.ParkCache;
+
+@Component
+@Endpoint(id = "parkcache") // /actuator/parkcache : taux de hit/miss et nombre d'évictions pour dimensionner le cache
+public class ParkCacheEndpoint {
+
+    @Autowired
+    private ParkCache parkCache;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return parkCache.stats();
+    }
+}
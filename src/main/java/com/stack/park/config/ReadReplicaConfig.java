@@ -0,0 +1,68 @@
+package com.stack.park.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Réplica en lecture, actif seulement si park.datasource.replica.url est renseigné.
+ *
+ * Deux pools Hikari : le primaire (spring.datasource.*) et le réplica (park.datasource.replica.*).
+ * La DataSource utilisée par JPA et JdbcTemplate choisit l'un ou l'autre à chaque transaction
+ * (voir ReadReplicaRoutingDataSource). Sans réplica, Spring Boot crée sa DataSource habituelle.
+ */
+@Configuration
+@ConditionalOnProperty(name = "park.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(@Value("${park.datasource.replica.url}") String url,
+                                              @Value("${park.datasource.replica.username:}") String username,
+                                              @Value("${park.datasource.replica.password:}") String password,
+                                              @Value("${park.datasource.replica.driver-class-name:}") String driverClassName,
+                                              @Value("${park.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create().type(HikariDataSource.class)
+            .url(url).username(username).password(password);
+        if (!driverClassName.isEmpty()) {
+            builder.driverClassName(driverClassName);
+        }
+        HikariDataSource dataSource = builder.build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, @Qualifier("replicaDataSource") DataSource replica) {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+            ReadReplicaRoutingDataSource.Route.PRIMARY, primary,
+            ReadReplicaRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,25 @@
+package com.stack.park.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envoie les transactions en lecture seule (@Transactional(readOnly = true)) au réplica, tout le reste au primaire.
+ * Doit être enveloppé dans un LazyConnectionDataSourceProxy : le caractère lecture seule de la transaction
+ * n'est connu qu'après son ouverture, au moment où la première requête demande réellement une connexion.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReplicaRoutingContext.isPrimaryForced()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,35 @@
+package com.stack.park.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Force la base primaire pour le code exécuté dans onPrimary(), même dans une transaction en lecture seule.
+ *
+ * La connexion étant obtenue à la première requête SQL (LazyConnectionDataSourceProxy), onPrimary() doit englober
+ * cette première requête : une transaction déjà connectée au réplica y reste jusqu'à sa fin.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(FORCE_PRIMARY.get());
+    }
+}
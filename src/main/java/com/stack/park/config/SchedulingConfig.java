@@ -0,0 +1,10 @@
+package com.stack.park.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // active les méthodes @Scheduled (écriture différée des compteurs d'occupation, ...)
+public class SchedulingConfig {
+
+}
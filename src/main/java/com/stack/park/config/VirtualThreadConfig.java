@@ -0,0 +1,35 @@
+package com.stack.park.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mode threads virtuels (spring.threads.virtual.enabled=true) : Tomcat, @Scheduled et @Async tournent sur des threads
+ * virtuels (configuré par Spring Boot). Le nombre de requêtes simultanées n'étant plus borné par le pool de Tomcat,
+ * on le borne ici au nombre de connexions du pool JDBC.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${park.concurrency.max-concurrent-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${park.concurrency.acquire-timeout:2s}") Duration acquireTimeout,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+            new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrent, acquireTimeout, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*"); // /actuator reste accessible même quand l'API est saturée
+        return registration;
+    }
+}
@@ -0,0 +1,39 @@
+package com.stack.park.controllers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import com.stack.park.dto.ParkListVersionProjection;
+import com.stack.park.entities.Park;
+
+/**
+ * ETags et dates Last-Modified des GET conditionnels (If-None-Match / If-Modified-Since → 304).
+ *
+ * Ils sont dérivés de la colonne version et de lastModifiedDate : toute écriture sur un park, y compris
+ * sur sa planification de capacité, incrémente sa version, sans avoir à relire ni sérialiser la réponse.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String park(Park park) {
+        return "\"park-" + park.getParkId() + "-" + park.getVersion() + "\"";
+    }
+
+    // la réponse dépend de la planification du park (sa version) et de la plage demandée
+    static String capacities(Park park, LocalDate startDate, LocalDate endDate) {
+        return "\"capacities-" + park.getParkId() + "-" + park.getVersion() + "-" + startDate + "-" + endDate + "\"";
+    }
+
+    // faible : le résumé identifie la liste sans garantir un corps identique octet par octet
+    static String parkList(ParkListVersionProjection summary) {
+        return "W/\"parks-" + summary.getParkCount() + "-" + summary.getVersionSum() + "-" + summary.getMaxParkId() + "\"";
+    }
+
+    // -1 = pas de Last-Modified, seul l'ETag est comparé
+    static long lastModified(LocalDateTime lastModifiedDate) {
+        return lastModifiedDate != null ? lastModifiedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,79 @@
+package com.stack.park.controllers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stack.park.dto.OccupancySyncRecord;
+import com.stack.park.services.OccupancyService;
+import com.stack.park.services.OccupancySyncService;
+import com.stack.park.services.ParkService;
+
+@RestController
+@RequestMapping("/api/parks")
+public class OccupancyController {
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private ParkService parkService;
+
+    @Autowired
+    private OccupancySyncService occupancySyncService;
+
+    /**
+     * Enregistre l'entrée d'un ou plusieurs véhicules dans un park
+     * 
+     * @param id l'identifiant du park
+     * @param count le nombre de véhicules entrés (1 par défaut)
+     * @return une réponse HTTP 200(ok) avec l'occupation à jour, HTTP 409 (Conflict) si le park est plein
+     */
+    @PostMapping("/{id}/entry")
+    public ResponseEntity<Map<String, Object>> recordEntry(@PathVariable("id") Integer id, @RequestParam(defaultValue = "1") int count) {
+        return ResponseEntity.ok(occupancyService.recordEntry(id, count));
+    }
+
+    /**
+     * Enregistre la sortie d'un ou plusieurs véhicules d'un park
+     * 
+     * @param id l'identifiant du park
+     * @param count le nombre de véhicules sortis (1 par défaut)
+     * @return une réponse HTTP 200(ok) avec l'occupation à jour, HTTP 409 (Conflict) si le park est déjà vide
+     */
+    @PostMapping("/{id}/exit")
+    public ResponseEntity<Map<String, Object>> recordExit(@PathVariable("id") Integer id, @RequestParam(defaultValue = "1") int count) {
+        return ResponseEntity.ok(occupancyService.recordExit(id, count));
+    }
+
+    /**
+     * Ajoute (delta > 0) ou retire (delta < 0) des places occupées directement en base, en une requête atomique
+     * 
+     * @param id l'identifiant du park
+     * @param delta la variation de l'occupation
+     * @return une réponse HTTP 200(ok) avec l'occupation à jour, HTTP 409 (Conflict) si la capacité serait dépassée ou l'occupation négative
+     */
+    @PostMapping("/{id}/occupancy")
+    public ResponseEntity<Map<String, Object>> adjustOccupancy(@PathVariable("id") Integer id, @RequestParam int delta) {
+        return ResponseEntity.ok(parkService.adjustOccupancy(id, delta));
+    }
+
+    /**
+     * Applique un lot de variations remontées par les contrôleurs de barrière, pour plusieurs parks à la fois
+     * 
+     * @param records les variations (parkId, delta, sequence), au plus 10000 par lot
+     * @return une réponse HTTP 200(ok) avec le résultat par park (applied, duplicate, conflict ou not_found), HTTP 400 (Bad Request) si un enregistrement est incomplet
+     */
+    @PostMapping("/occupancy/sync")
+    public ResponseEntity<Map<String, Object>> syncOccupancy(@RequestBody List<OccupancySyncRecord> records) {
+        return ResponseEntity.ok(occupancySyncService.sync(records));
+    }
+}
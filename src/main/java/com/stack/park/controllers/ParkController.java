@@ -9,6 +9,7 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,13 +21,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.stack.park.dto.CapacityBatchRequest;
+import com.stack.park.dto.ParkListVersionProjection;
 import com.stack.park.dto.ParkProjection;
 import com.stack.park.entities.Park;
 import com.stack.park.entities.ParkCapacityChange;
 import com.stack.park.exceptions.NotFoundException;
 import com.stack.park.services.ParkService;
+import com.stack.park.services.ParkUpdatePublisher;
 
 import jakarta.validation.Valid;
 
@@ -38,6 +45,9 @@ public class ParkController {
     @Autowired
     private ParkService parkService;
 
+    @Autowired
+    private ParkUpdatePublisher parkUpdatePublisher;
+
     /**
      * Ajouté un nouveau park
      * 
@@ -71,30 +81,76 @@ public class ParkController {
     /**
      * Récupère tous les parks
      * 
-     * @return Une liste de tous les parks
+     * @param webRequest pour répondre 304 (Not Modified) si l'ETag envoyé dans If-None-Match est toujours valable
+     * @return Une liste de tous les parks, ou une réponse 304 sans corps si aucun park n'a changé
      */
     @GetMapping
-    public List<Park> getAllUser() {
+    public List<Park> getAllUser(WebRequest webRequest) {
+        ParkListVersionProjection listVersion = parkService.getListVersion();
+        if (webRequest.checkNotModified(ETags.parkList(listVersion), ETags.lastModified(listVersion.getLastModifiedDate()))) {
+            return null; // 304 déjà préparé par checkNotModified
+        }
         return parkService.findAll();
     }
 
+    /**
+     * Exporte tous les parks en NDJSON (un park par ligne), en streaming depuis un curseur base de données
+     * 
+     * @return Une réponse HTTP 200 (Ok) écrite au fil de la lecture, sans charger tous les parks en mémoire
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAllParks() {
+        StreamingResponseBody body = outputStream -> parkService.exportAll(outputStream);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    /**
+     * Récupère les parks page par page, triés par identifiant
+     * 
+     * @param afterId le dernier identifiant de la page précédente (nextAfterId), absent pour la première page
+     * @param size le nombre de parks par page
+     * @return Une réponse HTTP 200 (Ok) avec les parks (items) et le curseur de la page suivante (nextAfterId)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getParksPage(@RequestParam(required = false) Integer afterId, @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(parkService.findPage(afterId, size));
+    }
+
     /**
      * Récupère un park par son identifiant
      * 
      * @param id L'identifiant du park à recupérer.
+     * @param webRequest pour répondre 304 (Not Modified) si le park n'a pas changé depuis l'ETag envoyé dans If-None-Match
      * @return Une réponse HTTP 200 (Ok) contenant le park si trouvé, ou une réponse HTTP 404 (Not Found) si non trouvé.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Optional<Park>> getUserById(@PathVariable("id") Integer id) {
+    public ResponseEntity<Optional<Park>> getUserById(@PathVariable("id") Integer id, WebRequest webRequest) {
             Optional<Park> userOptional = parkService.findById(id);
     
             if (userOptional.isPresent()) {
+                // ETag tiré de la version du park en cache : 304 sans sérialiser ni renvoyer le corps
+                Park park = userOptional.get();
+                if (webRequest.checkNotModified(ETags.park(park), ETags.lastModified(park.getLastModifiedDate()))) {
+                    return null;
+                }
                 return ResponseEntity.ok(userOptional);
             } else {
                 return ResponseEntity.notFound().build(); // si on ne spécifie pas le NotFoundException dans ExceptionHandler alors ici il peut retourner une erreur 500
             }
     }
 
+    /**
+     * Suit la capacité et l'occupation d'un park en Server-Sent Events, au lieu d'interroger GET /{id} en boucle
+     * 
+     * @param id L'identifiant du park à suivre
+     * @return Un flux text/event-stream : l'état actuel, puis un événement "park" à chaque changement
+     *         (les changements rapprochés sont regroupés), et "deleted" si le park est supprimé
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamParkUpdates(@PathVariable("id") Integer id) {
+        return parkUpdatePublisher.subscribe(id);
+    }
+
     /**
      * Met à jour les informations d'un park existant
      * 
@@ -157,6 +213,28 @@ public class ParkController {
         return ResponseEntity.ok(parks);
     }
 
+    /**
+     * récupère les parks dont la capacité est dans la bande [min, max], page par page
+     * 
+     * @param min la capacité minimale (incluse)
+     * @param max la capacité maximale (incluse)
+     * @param sort asc ou desc, tri par capacité puis par identifiant
+     * @param afterCapacity la capacité du dernier park de la page précédente (nextAfterCapacity)
+     * @param afterId l'identifiant du dernier park de la page précédente (nextAfterId)
+     * @param size le nombre de parks par page
+     * @return une réponse HTTP 200(ok) avec parkId, parkName et capacity de chaque park et le curseur de la page suivante
+     */
+    @GetMapping("/capacity-range")
+    public ResponseEntity<Map<String, Object>> getParksByCapacityRange(
+            @RequestParam(defaultValue = "1") Integer min,
+            @RequestParam(defaultValue = "" + Integer.MAX_VALUE) Integer max,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) Integer afterCapacity,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(parkService.findByCapacityRange(min, max, sort, afterCapacity, afterId, size));
+    }
+
     /**
      * ajoute une nouvelle capacité
      * 
@@ -168,8 +246,6 @@ public class ParkController {
     public ResponseEntity<?> addCapacityChange(@PathVariable("id") Integer id, @Valid @RequestBody ParkCapacityChange capacityChange) {
         try {
             Park updatedPark = parkService.addCapacityChange(id, capacityChange);
-
-            updatedPark = parkService.updateCapacityWithCurrent(updatedPark);
             return ResponseEntity.ok(updatedPark);
         } catch (NotFoundException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", ex.getMessage()));
@@ -201,6 +277,18 @@ public class ParkController {
         }
     }
 
+    /**
+     * récupère la capacité de plusieurs parks à une ou plusieurs dates en une seule requête
+     * 
+     * @param request les identifiants des parks et les dates cibles
+     * @return une réponse HTTP 200(ok) avec une ligne par park et par date, ou un message pour chaque park introuvable
+     */
+    @PostMapping("/capacity-at-date")
+    public ResponseEntity<List<Map<String, Object>>> getCapacitiesAtDate(@Valid @RequestBody CapacityBatchRequest request) {
+        List<Map<String, Object>> capacities = parkService.getCapacitiesAtDates(request.getParkIds(), request.getDates());
+        return ResponseEntity.ok(capacities);
+    }
+
     /**
      * 
      * @param id l'identifiant du park à récuperer
@@ -209,11 +297,16 @@ public class ParkController {
      * @return
      */
     @GetMapping("/{id}/capacities-between-dates")
-    public ResponseEntity<?> getCapacitiesBetweenDates(@PathVariable("id") Integer id, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+    public ResponseEntity<?> getCapacitiesBetweenDates(@PathVariable("id") Integer id, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate, WebRequest webRequest) {
         if (startDate.isAfter(endDate)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "startDate cannot be after endDate"));
         }
         try {
+            // la planification n'a pas changé depuis la dernière réponse : 304 sans recalculer les intervalles
+            Park park = parkService.findById(id).get();
+            if (webRequest.checkNotModified(ETags.capacities(park, startDate, endDate), ETags.lastModified(park.getLastModifiedDate()))) {
+                return null;
+            }
             List<Map<String, Object>> capacities = parkService.getCapacitiesGroupedByInterval(id, startDate, endDate);
 
             return ResponseEntity.ok(capacities);
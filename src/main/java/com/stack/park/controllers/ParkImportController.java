@@ -0,0 +1,66 @@
+package com.stack.park.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stack.park.services.ParkImportService;
+
+@RestController
+@RequestMapping("/api/parks")
+public class ParkImportController {
+
+    @Autowired
+    private ParkImportService parkImportService;
+
+    /**
+     * Importe des parks en masse depuis un fichier CSV (en-tête parkName,capacity[,occupiedSpace])
+     * 
+     * @param body le contenu du fichier, lu en streaming
+     * @return une réponse HTTP 200(ok) avec le nombre de parks importés et les erreurs ligne par ligne
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(parkImportService.importCsv(body));
+    }
+
+    /**
+     * Importe des parks en masse depuis un fichier NDJSON (un park JSON par ligne)
+     * 
+     * @param body le contenu du fichier, lu en streaming
+     * @return une réponse HTTP 200(ok) avec le nombre de parks importés et les erreurs ligne par ligne
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<Map<String, Object>> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(parkImportService.importNdjson(body));
+    }
+
+    /**
+     * Importe une planification de capacité pour plusieurs parks depuis un fichier CSV
+     * (en-tête parkId,newCapacity,startDate[,endDate]), en une seule transaction
+     * 
+     * @param body le contenu du fichier, lu en streaming
+     * @return une réponse HTTP 200(ok) avec le nombre de lignes insérées, modifiées, supprimées et les erreurs ligne par ligne
+     */
+    @PostMapping(value = "/capacity-changes/import", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> importScheduleCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(parkImportService.importScheduleCsv(body));
+    }
+
+    /**
+     * Importe une planification de capacité pour plusieurs parks depuis un fichier NDJSON, en une seule transaction
+     * 
+     * @param body le contenu du fichier, lu en streaming
+     * @return une réponse HTTP 200(ok) avec le nombre de lignes insérées, modifiées, supprimées et les erreurs ligne par ligne
+     */
+    @PostMapping(value = "/capacity-changes/import", consumes = "application/x-ndjson")
+    public ResponseEntity<Map<String, Object>> importScheduleNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(parkImportService.importScheduleNdjson(body));
+    }
+}
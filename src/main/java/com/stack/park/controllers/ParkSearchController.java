@@ -0,0 +1,81 @@
+package com.stack.park.controllers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stack.park.services.AvailabilityIndex;
+import com.stack.park.services.ParkGeoIndex;
+import com.stack.park.services.ParkNameIndex;
+
+@RestController
+@RequestMapping("/api/parks")
+public class ParkSearchController {
+
+    @Autowired
+    private ParkGeoIndex parkGeoIndex;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ParkNameIndex parkNameIndex;
+
+    /**
+     * Recherche les parks avec des places libres les plus proches d'une position, depuis l'index en mémoire
+     * 
+     * @param lat la latitude de la position
+     * @param lon la longitude de la position
+     * @param limit le nombre maximum de parks retournés (10 par défaut, 100 au plus)
+     * @param minFreeSpaces le nombre minimum de places libres (1 par défaut)
+     * @param maxDistanceKm la distance maximale en kilomètres (50 par défaut, 200 au plus)
+     * @return une réponse HTTP 200(ok) avec les parks du plus proche au plus lointain, HTTP 400 (Bad Request) si un paramètre est invalide
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<List<Map<String, Object>>> findNearest(@RequestParam double lat, @RequestParam double lon,
+                                                                 @RequestParam(defaultValue = "10") int limit,
+                                                                 @RequestParam(defaultValue = "1") int minFreeSpaces,
+                                                                 @RequestParam(defaultValue = "50") double maxDistanceKm) {
+        return ResponseEntity.ok(parkGeoIndex.findNearest(lat, lon, limit, minFreeSpaces, maxDistanceKm));
+    }
+
+    /**
+     * Autocomplétion : les parks dont le nom commence par un préfixe, sans tenir compte de la casse ni des accents
+     * 
+     * @param prefix le début du nom
+     * @param limit le nombre maximum de parks retournés (10 par défaut, 50 au plus)
+     * @return une réponse HTTP 200(ok) avec parkId, parkName et capacity des parks par ordre alphabétique, HTTP 400 (Bad Request) si un paramètre est invalide
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Map<String, Object>>> autocomplete(@RequestParam String prefix,
+                                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(parkNameIndex.findByPrefix(prefix, limit));
+    }
+
+    /**
+     * Recherche les parks qui ont au moins minFreeSpaces places libres à une date, par capacité décroissante (pagination par curseur)
+     * 
+     * @param date la date (format YYYY-MM-DD)
+     * @param minFreeSpaces le nombre minimum de places libres (1 par défaut)
+     * @param afterCapacity la capacité du dernier park de la page précédente (nextAfterCapacity)
+     * @param afterId l'id du dernier park de la page précédente (nextAfterId)
+     * @param size le nombre de parks par page (100 par défaut, 1000 au plus)
+     * @return une réponse HTTP 200(ok) avec parkId, parkName, capacity et freeSpaces de chaque park et le curseur de la page suivante
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> findAvailable(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                             @RequestParam(defaultValue = "1") int minFreeSpaces,
+                                                             @RequestParam(required = false) Integer afterCapacity,
+                                                             @RequestParam(required = false) Integer afterId,
+                                                             @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(availabilityIndex.findAvailable(date, minFreeSpaces, afterCapacity, afterId, size));
+    }
+}
@@ -0,0 +1,35 @@
+package com.stack.park.dto;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class CapacityBatchRequest {
+
+    @NotEmpty(message = "parkIds is mandatory")
+    @Size(max = 1000, message = "A batch cannot contain more than 1000 parks")
+    private Set<@NotNull(message = "parkIds cannot contain null") Integer> parkIds;
+
+    @NotEmpty(message = "dates is mandatory")
+    @Size(max = 31, message = "A batch cannot contain more than 31 dates")
+    private Set<@NotNull(message = "dates cannot contain null") LocalDate> dates;
+
+    public Set<Integer> getParkIds() {
+        return parkIds;
+    }
+
+    public void setParkIds(Set<Integer> parkIds) {
+        this.parkIds = parkIds;
+    }
+
+    public Set<LocalDate> getDates() {
+        return dates;
+    }
+
+    public void setDates(Set<LocalDate> dates) {
+        this.dates = dates;
+    }
+}
@@ -0,0 +1,37 @@
+package com.stack.park.dto;
+
+// une variation d'occupation remontée par un contrôleur de barrière (entrées > 0, sorties < 0)
+// l'ordre vient de la séquence, pas de l'horloge du contrôleur : un éventuel horodatage envoyé est ignoré
+public class OccupancySyncRecord {
+
+    private Integer parkId;
+
+    private Integer delta;
+
+    // croissante par park : sert à écarter les enregistrements déjà appliqués quand un lot est renvoyé
+    private Long sequence;
+
+    public Integer getParkId() {
+        return parkId;
+    }
+
+    public void setParkId(Integer parkId) {
+        this.parkId = parkId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,9 @@
+package com.stack.park.dto;
+
+public interface ParkAvailabilityProjection {
+    Integer getParkId();
+    String getParkName();
+    Integer getCapacity();
+    Integer getBaseCapacity();
+    Integer getOccupiedSpace();
+}
@@ -0,0 +1,6 @@
+package com.stack.park.dto;
+
+public interface ParkCapacityAtDateProjection {
+    Integer getParkId();
+    Integer getNewCapacity();
+}
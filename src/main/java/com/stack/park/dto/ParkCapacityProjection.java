@@ -0,0 +1,5 @@
+package com.stack.park.dto;
+
+public interface ParkCapacityProjection extends ParkProjection {
+    Integer getParkId();
+}
@@ -0,0 +1,10 @@
+package com.stack.park.dto;
+
+public interface ParkGeoProjection {
+    Integer getParkId();
+    String getParkName();
+    Double getLatitude();
+    Double getLongitude();
+    Integer getCapacity();
+    Integer getOccupiedSpace();
+}
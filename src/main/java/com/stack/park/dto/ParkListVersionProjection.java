@@ -0,0 +1,11 @@
+package com.stack.park.dto;
+
+import java.time.LocalDateTime;
+
+// résumé de toute la table park pour l'ETag de GET /api/parks : change dès qu'un park est créé, modifié ou supprimé
+public interface ParkListVersionProjection {
+    Long getParkCount();
+    Long getVersionSum();
+    Integer getMaxParkId();
+    LocalDateTime getLastModifiedDate();
+}
@@ -0,0 +1,7 @@
+package com.stack.park.dto;
+
+public interface ParkOccupancyProjection {
+    Integer getParkId();
+    Integer getCapacity();
+    Integer getOccupiedSpace();
+}
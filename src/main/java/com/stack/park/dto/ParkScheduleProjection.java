@@ -0,0 +1,8 @@
+package com.stack.park.dto;
+
+public interface ParkScheduleProjection {
+    Integer getParkId();
+    Integer getCapacity();
+    Integer getBaseCapacity();
+    Long getVersion();
+}
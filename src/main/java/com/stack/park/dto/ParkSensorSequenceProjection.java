@@ -0,0 +1,6 @@
+package com.stack.park.dto;
+
+public interface ParkSensorSequenceProjection {
+    Integer getParkId();
+    Long getLastSensorSequence();
+}
@@ -0,0 +1,83 @@
+package com.stack.park.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Dernière exécution réussie d'un traitement planifié : le prochain passage ne traite que ce qui a changé depuis.
+ */
+@Entity
+// ddl-auto=none en dev/prod :
+// CREATE TABLE job_watermark (job_name VARCHAR(100) PRIMARY KEY, last_run_date DATE NOT NULL, last_run_at TIMESTAMP NOT NULL, parks_checked INT NOT NULL, parks_updated INT NOT NULL);
+@Table(name = "job_watermark")
+public class JobWatermark {
+
+    @Id
+    @Column(name = "jobName", length = 100)
+    private String jobName;
+
+    // date jusqu'à laquelle (incluse) les bornes de changements ont été appliquées
+    @Column(name = "lastRunDate", nullable = false)
+    private LocalDate lastRunDate;
+
+    @Column(name = "lastRunAt", nullable = false)
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "parksChecked", nullable = false)
+    private Integer parksChecked;
+
+    @Column(name = "parksUpdated", nullable = false)
+    private Integer parksUpdated;
+
+    public JobWatermark() {
+    }
+
+    public JobWatermark(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public LocalDate getLastRunDate() {
+        return lastRunDate;
+    }
+
+    public void setLastRunDate(LocalDate lastRunDate) {
+        this.lastRunDate = lastRunDate;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public void setLastRunAt(LocalDateTime lastRunAt) {
+        this.lastRunAt = lastRunAt;
+    }
+
+    public Integer getParksChecked() {
+        return parksChecked;
+    }
+
+    public void setParksChecked(Integer parksChecked) {
+        this.parksChecked = parksChecked;
+    }
+
+    public Integer getParksUpdated() {
+        return parksUpdated;
+    }
+
+    public void setParksUpdated(Integer parksUpdated) {
+        this.parksUpdated = parksUpdated;
+    }
+}
@@ -9,7 +9,9 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -18,14 +20,20 @@ import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "park")
+// idx_park_capacity sert les requêtes par bande de capacité (filtre + tri + keyset sur capacity, parkId)
+// ddl-auto=none en dev/prod : CREATE INDEX idx_park_capacity ON park (capacity, park_id);
+@Table(name = "park", indexes = @Index(name = "idx_park_capacity", columnList = "capacity, parkId"))
 @EntityListeners(AuditingEntityListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Park {
@@ -45,11 +53,42 @@ public class Park {
     @NotNull(message = "Capacity is mandatory") // @NotNull() = pour les types Integer
     private Integer capacity;
 
+    // capacité hors de tout changement planifié : celle qui s'applique quand aucun changement ne couvre la date
+    // capacity, elle, est la capacité du jour (recalculée par CapacityRollForwardService au passage des bornes)
+    // ddl-auto=none en dev/prod : ALTER TABLE park ADD COLUMN base_capacity INT NULL;
+    @Column(name = "baseCapacity")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer baseCapacity;
+
     @Column(name= "occupiedSpace", nullable=false)
     @Min(value=0, message = "Occupied space cannot be negative")
     @NotNull(message = "occupid space is Mandatory")
     private Integer occupiedSpace;
 
+    // position du park (WGS 84), facultative : un park sans coordonnées n'apparaît pas dans la recherche des parks proches
+    // ddl-auto=none en dev/prod : ALTER TABLE park ADD COLUMN latitude DOUBLE PRECISION NULL, ADD COLUMN longitude DOUBLE PRECISION NULL;
+    @Column(name = "latitude")
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
+    // dernière séquence de capteur appliquée par OccupancySyncService : un lot renvoyé après un échec n'est pas compté deux fois
+    // ddl-auto=none en dev/prod : ALTER TABLE park ADD COLUMN last_sensor_sequence BIGINT NULL;
+    @Column(name = "lastSensorSequence")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long lastSensorSequence;
+
+    // verrouillage optimiste : un PUT avec une version périmée est refusé au lieu d'écraser une écriture concurrente
+    // ddl-auto=none en dev/prod : ALTER TABLE park ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @CreatedDate
     @Column(name ="createdDate", nullable = false, updatable = false)
     private LocalDateTime createdDate;
@@ -75,6 +114,20 @@ public class Park {
         this.capacity = capacity;
     }
 
+    public Integer getBaseCapacity() {
+        return baseCapacity;
+    }
+
+    public void setBaseCapacity(Integer baseCapacity) {
+        this.baseCapacity = baseCapacity;
+    }
+
+    // capacité à utiliser quand aucun changement ne couvre une date (les parks d'avant base_capacity retombent sur capacity)
+    @JsonIgnore
+    public Integer getDefaultCapacity() {
+        return baseCapacity != null ? baseCapacity : capacity;
+    }
+
     public Integer getOccupiedSpace() {
         return occupiedSpace;
     }
@@ -83,6 +136,30 @@ public class Park {
         this.occupiedSpace = occupiedSpace;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public Long getLastSensorSequence() {
+        return lastSensorSequence;
+    }
+
+    public void setLastSensorSequence(Long lastSensorSequence) {
+        this.lastSensorSequence = lastSensorSequence;
+    }
+
     public Integer getParkId() {
         return parkId;
     }
@@ -98,6 +175,14 @@ public class Park {
     public void setParkName(String parkName) {
         this.parkName = parkName;
     }
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedDate() {
         return createdDate;
     }
@@ -9,6 +9,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -18,7 +19,13 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "park_capacity_change")
+// idx_change_start_date / idx_change_end_date servent la recherche des bornes franchies (CapacityRollForwardService)
+// ddl-auto=none en dev/prod : CREATE INDEX idx_change_start_date ON park_capacity_change (start_date);
+//                            CREATE INDEX idx_change_end_date ON park_capacity_change (end_date);
+@Table(name = "park_capacity_change", indexes = {
+    @Index(name = "idx_change_start_date", columnList = "startDate"),
+    @Index(name = "idx_change_end_date", columnList = "endDate")
+})
 public class ParkCapacityChange {
 
     @Id
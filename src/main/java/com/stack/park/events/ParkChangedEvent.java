@@ -0,0 +1,18 @@
+package com.stack.park.events;
+
+/**
+ * Publié (ApplicationEventPublisher) à chaque écriture sur un park. Ne transporte que l'id et la nature du changement :
+ * les écouteurs relisent l'état courant, ce qui regroupe naturellement plusieurs changements rapprochés en un seul.
+ *
+ * Les écouteurs @TransactionalEventListener le reçoivent après le commit, ou tout de suite hors transaction.
+ */
+public record ParkChangedEvent(Integer parkId, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        CAPACITY,
+        OCCUPANCY,
+        DELETED
+    }
+}
@@ -0,0 +1,9 @@
+package com.stack.park.exceptions;
+
+public class OccupancyConflictException extends RuntimeException{
+
+    public OccupancyConflictException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.stack.park.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Index spatial en grille : la surface est découpée en cellules de cellDegrees x cellDegrees (latitude x longitude),
+ * chaque point est rangé dans sa cellule.
+ *
+ * La recherche des plus proches parcourt les cellules en anneaux autour du point demandé et s'arrête dès qu'aucun
+ * anneau suivant ne peut contenir un point plus proche que le k-ième trouvé (ou au-delà de la distance maximale) :
+ * seuls les points voisins sont examinés, quel que soit le nombre total de points.
+ *
+ * Lectures sans verrou, écritures sérialisées. Une lecture concurrente d'un déplacement peut voir le point
+ * dans l'ancienne ou la nouvelle cellule.
+ */
+public class GeoGrid<T> {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double cellDegrees;
+    private final int latCells;
+    private final int lonCells;
+
+    private final ConcurrentHashMap<Long, Map<Integer, Entry<T>>> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Entry<T>> byId = new ConcurrentHashMap<>();
+
+    private record Entry<T>(int id, double latitude, double longitude, long cell, T value) {
+    }
+
+    public record Neighbour<T>(int id, T value, double distanceKm) {
+    }
+
+    public GeoGrid(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > 90) {
+            throw new IllegalArgumentException("cellDegrees must be in ]0, 90]");
+        }
+        this.cellDegrees = cellDegrees;
+        this.latCells = (int) Math.ceil(180 / cellDegrees);
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public synchronized void put(int id, double latitude, double longitude, T value) {
+        long cell = cellOf(latIndex(latitude), lonIndex(longitude));
+        Entry<T> entry = new Entry<>(id, latitude, longitude, cell, value);
+        Entry<T> previous = byId.put(id, entry);
+        if (previous != null && previous.cell() != cell) {
+            removeFromCell(previous);
+        }
+        cells.computeIfAbsent(cell, key -> new ConcurrentHashMap<>()).put(id, entry);
+    }
+
+    public synchronized void remove(int id) {
+        Entry<T> previous = byId.remove(id);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        cells.computeIfPresent(entry.cell(), (key, cell) -> {
+            cell.remove(entry.id());
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Les limit points les plus proches qui passent le filtre, à moins de maxDistanceKm, du plus proche au plus lointain.
+     */
+    public List<Neighbour<T>> nearest(double latitude, double longitude, int limit, double maxDistanceKm, Predicate<T> filter) {
+        int queryLat = latIndex(latitude);
+        int queryLon = lonIndex(longitude);
+        // tas max : le plus lointain des meilleurs est en tête, remplacé dès qu'on trouve plus proche
+        PriorityQueue<Neighbour<T>> best = new PriorityQueue<>(Comparator.comparingDouble((Neighbour<T> n) -> n.distanceKm()).reversed());
+        int maxRing = Math.max(latCells, lonCells / 2);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double bound = ringLowerBoundKm(ring, latitude);
+            if (bound > maxDistanceKm || (best.size() == limit && bound >= best.peek().distanceKm())) {
+                break;
+            }
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                int latIndex = queryLat + dLat;
+                if (latIndex < 0 || latIndex >= latCells) {
+                    continue;
+                }
+                // sur les lignes intérieures de l'anneau, seules les deux colonnes du bord sont nouvelles
+                int step = Math.abs(dLat) == ring ? 1 : Math.max(1, 2 * ring);
+                for (int dLon = -ring; dLon <= ring; dLon += step) {
+                    // au-delà d'un demi-tour, la colonne a déjà été vue de l'autre côté de l'antiméridien
+                    if (Math.abs(dLon) > lonCells / 2 || (lonCells % 2 == 0 && dLon == -lonCells / 2)) {
+                        continue;
+                    }
+                    Map<Integer, Entry<T>> cell = cells.get(cellOf(latIndex, Math.floorMod(queryLon + dLon, lonCells)));
+                    if (cell != null) {
+                        collect(cell, latitude, longitude, limit, maxDistanceKm, filter, best);
+                    }
+                }
+            }
+        }
+
+        List<Neighbour<T>> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return result;
+    }
+
+    private void collect(Map<Integer, Entry<T>> cell, double latitude, double longitude, int limit, double maxDistanceKm,
+                         Predicate<T> filter, PriorityQueue<Neighbour<T>> best) {
+        for (Entry<T> entry : cell.values()) {
+            double distance = distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+            if (distance > maxDistanceKm || (best.size() == limit && distance >= best.peek().distanceKm())) {
+                continue;
+            }
+            if (!filter.test(entry.value())) {
+                continue;
+            }
+            best.add(new Neighbour<>(entry.id(), entry.value(), distance));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    /**
+     * Distance minimale entre le point demandé et tout point de l'anneau ring ou au-delà, valable pour tous les anneaux
+     * suivants : la recherche peut s'arrêter dès qu'elle dépasse le k-ième trouvé.
+     *
+     * Un tel point a au moins gap = ring - 1 cellules d'écart en latitude, ou un écart g < gap en latitude et au moins
+     * gap en longitude ; il est alors à plus de R * g, et à plus de la borne en longitude à la latitude |latitude| + g
+     * (hav(d) >= cos²(latitude) * hav(écart)). La première croît avec g, la seconde décroît : le minimum est à leur
+     * croisement, trouvé par dichotomie.
+     */
+    double ringLowerBoundKm(int ring, double latitude) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double gap = Math.toRadians((ring - 1) * cellDegrees);
+        double queryLatitude = Math.toRadians(Math.abs(latitude));
+        double low = 0;
+        double high = gap;
+        for (int i = 0; i < 30; i++) {
+            double middle = (low + high) / 2;
+            if (EARTH_RADIUS_KM * middle < lonLowerBoundKm(queryLatitude + middle, gap)) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return EARTH_RADIUS_KM * low;
+    }
+
+    private static double lonLowerBoundKm(double maxLatitude, double lonGap) {
+        double cos = Math.cos(Math.min(maxLatitude, Math.PI / 2));
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, cos * Math.sin(Math.min(lonGap, Math.PI) / 2)));
+    }
+
+    // distance du grand cercle (haversine)
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int latIndex(double latitude) {
+        return Math.min(latCells - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), lonCells);
+    }
+
+    private long cellOf(int latIndex, int lonIndex) {
+        return (long) latIndex * lonCells + lonIndex;
+    }
+}
@@ -0,0 +1,8 @@
+package com.stack.park.querystats;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.stack.park.querystats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Nombre maximal de requêtes SQL par appel d'endpoint (park.query-budget.*).
+ *
+ * Les limites sont indexées par Contrôleur.méthode, par exemple
+ * park.query-budget.limits.ParkController.getCapacityAtDate=2 ; les autres endpoints ont default-limit.
+ *
+ * Seules les requêtes préparées par Hibernate sont comptées : les batchs JdbcTemplate (import en masse, sync d'occupation,
+ * recalcul des capacités) échappent au budget, qui ne couvre que la partie JPA de ces endpoints.
+ */
+@ConfigurationProperties(prefix = "park.query-budget")
+public class QueryBudgetProperties {
+
+    private boolean enabled = true;
+
+    private int defaultLimit = 10;
+
+    private Map<String, Integer> limits = new HashMap<>();
+
+    // true dans les tests : un dépassement fait échouer la requête (avant l'écriture du corps) au lieu d'un simple warning
+    private boolean failOnExceed = false;
+
+    public int limitFor(String endpoint) {
+        return limits.getOrDefault(endpoint, defaultLimit);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public Map<String, Integer> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, Integer> limits) {
+        this.limits = limits;
+    }
+
+    public boolean isFailOnExceed() {
+        return failOnExceed;
+    }
+
+    public void setFailOnExceed(boolean failOnExceed) {
+        this.failOnExceed = failOnExceed;
+    }
+}
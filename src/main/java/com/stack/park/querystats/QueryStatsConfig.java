@@ -0,0 +1,53 @@
+package com.stack.park.querystats;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Comptage des requêtes SQL par requête HTTP et budget par endpoint (voir QueryBudgetProperties).
+ */
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class QueryStatsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryStatsInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryStatsInspector());
+    }
+
+    @Bean
+    public QueryStatsListener queryStatsListener(EntityManagerFactory entityManagerFactory) {
+        QueryStatsListener listener = new QueryStatsListener();
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_LOAD, listener);
+        listeners.appendListeners(EventType.INIT_COLLECTION, listener);
+        return listener;
+    }
+
+    @Bean
+    public QueryStatsRegistry queryStatsRegistry() {
+        return new QueryStatsRegistry();
+    }
+
+    @Bean
+    public QueryStatsEndpoint queryStatsEndpoint(QueryStatsRegistry registry, QueryBudgetProperties budget) {
+        return new QueryStatsEndpoint(registry, budget);
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryStatsFilter> queryStatsFilter(QueryStatsRegistry registry, QueryBudgetProperties budget) {
+        FilterRegistrationBean<QueryStatsFilter> registration = new FilterRegistrationBean<>(new QueryStatsFilter(registry, budget));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
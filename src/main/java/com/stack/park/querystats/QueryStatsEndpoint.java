@@ -0,0 +1,30 @@
+package com.stack.park.querystats;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+// /actuator/querystats : requêtes SQL, entités et collections par appel de chaque endpoint ; DELETE remet à zéro
+@Endpoint(id = "querystats")
+public class QueryStatsEndpoint {
+
+    private final QueryStatsRegistry registry;
+    private final QueryBudgetProperties budget;
+
+    public QueryStatsEndpoint(QueryStatsRegistry registry, QueryBudgetProperties budget) {
+        this.registry = registry;
+        this.budget = budget;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return registry.snapshot(budget);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        registry.reset();
+    }
+}
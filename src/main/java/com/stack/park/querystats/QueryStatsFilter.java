@@ -0,0 +1,73 @@
+package com.stack.park.querystats;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Ouvre les compteurs au début de chaque requête /api, puis les cumule par endpoint et signale les dépassements de budget.
+ *
+ * Le filtre passe après l'écriture de la réponse et le commit : il ne peut que journaliser. Le refus d'une réponse
+ * hors budget (fail-on-exceed) se fait avant l'écriture du corps, dans QueryStatsHeaderAdvice.
+ */
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    private final QueryStatsRegistry registry;
+    private final QueryBudgetProperties budget;
+
+    public QueryStatsFilter(QueryStatsRegistry registry, QueryBudgetProperties budget) {
+        this.registry = registry;
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+            record(request, stats); // aussi quand la requête a échoué, budget dépassé compris
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStats stats) {
+        String endpoint = endpointName(request);
+        if (endpoint == null) {
+            return;
+        }
+        int limit = budget.limitFor(endpoint);
+        boolean overBudget = budget.isEnabled() && stats.getStatements() > limit;
+        registry.record(endpoint, stats, overBudget);
+        if (overBudget) {
+            logger.warn(overBudgetMessage(endpoint, request, stats, limit));
+        }
+    }
+
+    static String overBudgetMessage(String endpoint, HttpServletRequest request, RequestQueryStats stats, int limit) {
+        return String.format("Query budget exceeded for %s (%s %s): %d statements, budget %d (%d entities, %d collections)",
+            endpoint, request.getMethod(), request.getRequestURI(), stats.getStatements(), limit,
+            stats.getEntitiesLoaded(), stats.getCollectionsFetched());
+    }
+
+    // Contrôleur.méthode qui a traité la requête, null si aucune (ressource statique, 404...)
+    static String endpointName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        return null;
+    }
+}
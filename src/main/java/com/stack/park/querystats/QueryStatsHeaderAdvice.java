@@ -0,0 +1,57 @@
+package com.stack.park.querystats;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * En dehors de la prod, ajoute X-Query-Stats à chaque réponse avec un corps, juste avant son écriture
+ * (un en-tête ne peut plus être ajouté une fois le corps envoyé). Un chargement paresseux déclenché par
+ * la sérialisation JSON n'y figure donc pas, mais il est compté dans /actuator/querystats.
+ *
+ * Avec park.query-budget.fail-on-exceed=true, une réponse hors budget est refusée ici, avant que le corps soit écrit :
+ * la requête échoue en 500 au lieu d'un simple warning. Les réponses sans corps converti (void, flux) ne sont pas vérifiées.
+ */
+@ControllerAdvice
+@Profile("!prod")
+public class QueryStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-Query-Stats";
+
+    // absent dans les tests @WebMvcTest, qui ne chargent pas QueryStatsConfig
+    @Autowired(required = false)
+    private QueryBudgetProperties budget;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats == null) {
+            return body;
+        }
+        response.getHeaders().set(HEADER, stats.toHeaderValue());
+
+        if (budget != null && budget.isEnabled() && budget.isFailOnExceed()
+                && request instanceof ServletServerHttpRequest servletRequest) {
+            String endpoint = QueryStatsFilter.endpointName(servletRequest.getServletRequest());
+            if (endpoint != null && stats.getStatements() > budget.limitFor(endpoint)) {
+                throw new QueryBudgetExceededException(QueryStatsFilter.overBudgetMessage(endpoint, servletRequest.getServletRequest(),
+                    stats, budget.limitFor(endpoint)));
+            }
+        }
+        return body;
+    }
+}
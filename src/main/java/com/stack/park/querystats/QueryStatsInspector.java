@@ -0,0 +1,15 @@
+package com.stack.park.querystats;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Appelé par Hibernate pour chaque requête SQL qu'il prépare : on la compte sans la modifier.
+ */
+public class QueryStatsInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueryStats.statementPrepared();
+        return sql;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stack.park.querystats;
+
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * Compte les entités hydratées et les collections initialisées (chargement paresseux) pendant la requête.
+ * Beaucoup de collections initialisées pour une seule requête HTTP est le signe d'un N+1.
+ */
+public class QueryStatsListener implements PostLoadEventListener, InitializeCollectionEventListener {
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestQueryStats.entityLoaded();
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        RequestQueryStats.collectionFetched();
+    }
+}
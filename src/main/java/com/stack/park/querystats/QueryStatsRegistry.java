@@ -0,0 +1,58 @@
+package com.stack.park.querystats;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumul par endpoint des compteurs de chaque requête, exposé par /actuator/querystats.
+ */
+public class QueryStatsRegistry {
+
+    private static class EndpointStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        final LongAdder entitiesLoaded = new LongAdder();
+        final LongAdder collectionsFetched = new LongAdder();
+        final AtomicLong budgetExceeded = new AtomicLong();
+    }
+
+    private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, RequestQueryStats stats, boolean overBudget) {
+        EndpointStats endpointStats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        endpointStats.requests.increment();
+        endpointStats.statements.add(stats.getStatements());
+        endpointStats.maxStatements.accumulate(stats.getStatements());
+        endpointStats.entitiesLoaded.add(stats.getEntitiesLoaded());
+        endpointStats.collectionsFetched.add(stats.getCollectionsFetched());
+        if (overBudget) {
+            endpointStats.budgetExceeded.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> snapshot(QueryBudgetProperties budget) {
+        Map<String, Object> snapshot = new TreeMap<>();
+        endpoints.forEach((endpoint, stats) -> {
+            long requests = Math.max(stats.requests.sum(), 1);
+            Map<String, Object> entry = new TreeMap<>();
+            entry.put("requests", stats.requests.sum());
+            entry.put("statementsPerRequest", (double) stats.statements.sum() / requests);
+            entry.put("maxStatements", stats.maxStatements.get());
+            entry.put("entitiesPerRequest", (double) stats.entitiesLoaded.sum() / requests);
+            entry.put("collectionsPerRequest", (double) stats.collectionsFetched.sum() / requests);
+            entry.put("budget", budget.limitFor(endpoint));
+            entry.put("budgetExceeded", stats.budgetExceeded.get());
+            snapshot.put(endpoint, entry);
+        });
+        return snapshot;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+}
@@ -0,0 +1,72 @@
+package com.stack.park.querystats;
+
+/**
+ * Compteurs Hibernate de la requête HTTP en cours, attachés au thread qui la traite.
+ *
+ * Alimentés par QueryStatsInspector (requêtes SQL préparées par Hibernate) et QueryStatsListener
+ * (entités chargées, collections initialisées). Les écritures JdbcTemplate et le travail fait
+ * sur d'autres threads (streaming, traitements planifiés) ne sont pas comptés.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int entitiesLoaded;
+    private int collectionsFetched;
+
+    private RequestQueryStats() {
+    }
+
+    public static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    // null hors d'une requête HTTP suivie
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    static void statementPrepared() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entitiesLoaded++;
+        }
+    }
+
+    static void collectionFetched() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.collectionsFetched++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public int getCollectionsFetched() {
+        return collectionsFetched;
+    }
+
+    public String toHeaderValue() {
+        return "statements=" + statements + ", entities=" + entitiesLoaded + ", collections=" + collectionsFetched;
+    }
+}
@@ -0,0 +1,51 @@
+package com.stack.park.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.stack.park.dto.ParkCapacityAtDateProjection;
+import com.stack.park.entities.ParkCapacityChange;
+
+@Repository
+public interface ParkCapacityChangeRepository extends JpaRepository<ParkCapacityChange, Integer> {
+
+    @Query("SELECT c FROM ParkCapacityChange c JOIN FETCH c.park p WHERE p.parkId = :parkId ORDER BY c.startDate")
+    List<ParkCapacityChange> findByParkId(@Param("parkId") Integer parkId);
+
+    // toute la planification de plusieurs parks en une requête (import en masse)
+    @Query("SELECT c FROM ParkCapacityChange c JOIN FETCH c.park p WHERE p.parkId IN :parkIds ORDER BY p.parkId, c.startDate")
+    List<ParkCapacityChange> findByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    // tous les changements de plusieurs parks qui touchent la plage [from, to], en une seule requête
+    // JOIN FETCH évite un select par park à cause du @ManyToOne
+    @Query("SELECT c FROM ParkCapacityChange c JOIN FETCH c.park p WHERE p.parkId IN :parkIds AND c.startDate <= :to AND (c.endDate IS NULL OR c.endDate >= :from)")
+    List<ParkCapacityChange> findByParkIdsBetweenDates(@Param("parkIds") Collection<Integer> parkIds, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // capacité planifiée à une date, pour tous les parks qui ont un changement ce jour-là, ou pour quelques parks
+    // (les changements d'un park ne se chevauchent pas : au plus une ligne par park)
+    @Query("SELECT c.park.parkId AS parkId, c.newCapacity AS newCapacity FROM ParkCapacityChange c "
+        + "WHERE c.startDate <= :date AND (c.endDate IS NULL OR c.endDate >= :date)")
+    List<ParkCapacityAtDateProjection> findCapacitiesAtDate(@Param("date") LocalDate date);
+
+    @Query("SELECT c.park.parkId AS parkId, c.newCapacity AS newCapacity FROM ParkCapacityChange c "
+        + "WHERE c.park.parkId IN :parkIds AND c.startDate <= :date AND (c.endDate IS NULL OR c.endDate >= :date)")
+    List<ParkCapacityAtDateProjection> findCapacitiesAtDateByParkIds(@Param("parkIds") Collection<Integer> parkIds, @Param("date") LocalDate date);
+
+    // toute la planification d'un park en une requête (suppression du park)
+    @Modifying
+    @Query("DELETE FROM ParkCapacityChange c WHERE c.park.parkId = :parkId")
+    int deleteByParkId(@Param("parkId") Integer parkId);
+
+    // parks dont un changement commence dans (after, until] ou s'est terminé la veille d'un jour de (after, until] :
+    // ce sont les seuls dont la capacité du jour a pu changer depuis after
+    @Query("SELECT DISTINCT c.park.parkId FROM ParkCapacityChange c "
+        + "WHERE (c.startDate > :after AND c.startDate <= :until) OR (c.endDate >= :after AND c.endDate < :until)")
+    List<Integer> findParkIdsWithBoundaryBetween(@Param("after") LocalDate after, @Param("until") LocalDate until);
+}
@@ -1,24 +1,128 @@
 package com.stack.park.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.stack.park.dto.ParkAvailabilityProjection;
+import com.stack.park.dto.ParkCapacityProjection;
+import com.stack.park.dto.ParkGeoProjection;
+import com.stack.park.dto.ParkListVersionProjection;
+import com.stack.park.dto.ParkOccupancyProjection;
 import com.stack.park.dto.ParkProjection;
+import com.stack.park.dto.ParkScheduleProjection;
+import com.stack.park.dto.ParkSensorSequenceProjection;
 import com.stack.park.entities.Park;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ParkRepository extends JpaRepository<Park, Integer>{
     Optional<Park> findByParkName(String parkName);
 
+    // vérification d'unicité en masse : les noms de la liste qui existent déjà
+    @Query("SELECT p.parkName FROM Park p WHERE p.parkName IN :names")
+    List<String> findExistingParkNames(@Param("names") Collection<String> names);
+
+    // ids des parks insérés par l'import en masse (INSERT JDBC sans retour des clés générées)
+    @Query("SELECT p.parkId FROM Park p WHERE p.parkName IN :names")
+    List<Integer> findParkIdsByParkNames(@Param("names") Collection<String> names);
+
     List<Park> findByCapacityGreaterThan(Integer capacity);
 
+    // une ligne d'agrégats au lieu de toutes les entités : sert à l'ETag de la liste
+    @Query("SELECT COUNT(p) AS parkCount, COALESCE(SUM(p.version), 0) AS versionSum, MAX(p.parkId) AS maxParkId, "
+        + "MAX(p.lastModifiedDate) AS lastModifiedDate FROM Park p")
+    ParkListVersionProjection findListVersion();
+
     @Query("SELECT p FROM Park p WHERE p.capacity < 10000")
     List<Park> findByCapacityLessThan();
 
     @Query("SELECT p.parkName AS parkName, p.capacity AS capacity FROM Park p WHERE p.capacity BETWEEN 10000 AND 40000")
     List<ParkProjection> findParksWithMediumCapacity();
+
+    // bandes de capacité : projection (pas d'entité hydratée) + keyset sur (capacity, parkId), servi par l'index idx_park_capacity
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.capacity AS capacity FROM Park p "
+        + "WHERE p.capacity BETWEEN :min AND :max "
+        + "AND (p.capacity > :afterCapacity OR (p.capacity = :afterCapacity AND p.parkId > :afterId)) "
+        + "ORDER BY p.capacity ASC, p.parkId ASC")
+    List<ParkCapacityProjection> findByCapacityRangeAsc(@Param("min") Integer min, @Param("max") Integer max,
+        @Param("afterCapacity") Integer afterCapacity, @Param("afterId") Integer afterId, Limit limit);
+
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.capacity AS capacity FROM Park p "
+        + "WHERE p.capacity BETWEEN :min AND :max "
+        + "AND (p.capacity < :afterCapacity OR (p.capacity = :afterCapacity AND p.parkId > :afterId)) "
+        + "ORDER BY p.capacity DESC, p.parkId ASC")
+    List<ParkCapacityProjection> findByCapacityRangeDesc(@Param("min") Integer min, @Param("max") Integer max,
+        @Param("afterCapacity") Integer afterCapacity, @Param("afterId") Integer afterId, Limit limit);
+
+    @Query("SELECT p.parkId AS parkId, p.capacity AS capacity, p.occupiedSpace AS occupiedSpace FROM Park p WHERE p.parkId = :parkId")
+    Optional<ParkOccupancyProjection> findOccupancyByParkId(@Param("parkId") Integer parkId);
+
+    @Query("SELECT p.parkId AS parkId, p.capacity AS capacity, p.occupiedSpace AS occupiedSpace FROM Park p WHERE p.parkId IN :parkIds")
+    List<ParkOccupancyProjection> findOccupancyByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    // capacité du jour, capacité de base et version de plusieurs parks (recalcul planifié des capacités)
+    @Query("SELECT p.parkId AS parkId, p.capacity AS capacity, p.baseCapacity AS baseCapacity, p.version AS version FROM Park p WHERE p.parkId IN :parkIds")
+    List<ParkScheduleProjection> findScheduleByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    // dernière séquence de capteur appliquée de plusieurs parks (synchronisation des compteurs)
+    @Query("SELECT p.parkId AS parkId, p.lastSensorSequence AS lastSensorSequence FROM Park p WHERE p.parkId IN :parkIds")
+    List<ParkSensorSequenceProjection> findSensorSequenceByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    // position, capacité et occupation pour l'index géographique, par parks modifiés ou par page (keyset sur parkId)
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.latitude AS latitude, p.longitude AS longitude, "
+        + "p.capacity AS capacity, p.occupiedSpace AS occupiedSpace FROM Park p WHERE p.parkId IN :parkIds")
+    List<ParkGeoProjection> findGeoByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.latitude AS latitude, p.longitude AS longitude, "
+        + "p.capacity AS capacity, p.occupiedSpace AS occupiedSpace FROM Park p "
+        + "WHERE p.parkId > :afterId AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL ORDER BY p.parkId")
+    List<ParkGeoProjection> findGeoPage(@Param("afterId") Integer afterId, Limit limit);
+
+    // nom et capacité pour l'index des noms, par parks modifiés ou par page (keyset sur parkId)
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.capacity AS capacity FROM Park p WHERE p.parkId IN :parkIds")
+    List<ParkCapacityProjection> findNameByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.capacity AS capacity FROM Park p WHERE p.parkId > :afterId ORDER BY p.parkId")
+    List<ParkCapacityProjection> findNamePage(@Param("afterId") Integer afterId, Limit limit);
+
+    // nom, capacité par défaut et occupation de tous les parks, ou des parks modifiés (index de disponibilité)
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.capacity AS capacity, p.baseCapacity AS baseCapacity, "
+        + "p.occupiedSpace AS occupiedSpace FROM Park p")
+    List<ParkAvailabilityProjection> findAvailability();
+
+    @Query("SELECT p.parkId AS parkId, p.parkName AS parkName, p.capacity AS capacity, p.baseCapacity AS baseCapacity, "
+        + "p.occupiedSpace AS occupiedSpace FROM Park p WHERE p.parkId IN :parkIds")
+    List<ParkAvailabilityProjection> findAvailabilityByParkIds(@Param("parkIds") Collection<Integer> parkIds);
+
+    // +delta/-delta atomique : la vérification 0 <= occupiedSpace <= capacity est faite par la base dans le même UPDATE
+    // retourne 0 si le park n'existe pas ou si la variation sortirait des bornes
+    @Modifying
+    @Query("UPDATE Park p SET p.occupiedSpace = p.occupiedSpace + :delta, p.version = p.version + 1, p.lastModifiedDate = :now "
+        + "WHERE p.parkId = :parkId AND p.occupiedSpace + :delta >= 0 AND p.occupiedSpace + :delta <= p.capacity")
+    int adjustOccupiedSpace(@Param("parkId") Integer parkId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    // curseur côté base : les lignes arrivent par paquets de 500 au lieu de tout charger (à consommer dans une transaction)
+    // avec MySQL il faut useCursorFetch=true dans l'URL JDBC pour que le fetch size soit respecté
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Park p ORDER BY p.parkId")
+    Stream<Park> streamAllOrderByParkId();
+
+    // pagination par clé (keyset) : WHERE parkId > :afterId utilise la clé primaire, pas d'OFFSET à parcourir
+    List<Park> findByParkIdGreaterThanOrderByParkIdAsc(Integer afterId, Limit limit);
 }
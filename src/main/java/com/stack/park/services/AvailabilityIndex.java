@@ -0,0 +1,289 @@
+package com.stack.park.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.stack.park.dto.ParkAvailabilityProjection;
+import com.stack.park.dto.ParkCapacityAtDateProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
+import com.stack.park.repositories.ParkRepository;
+
+/**
+ * Recherche des parks qui ont au moins N places libres à une date donnée, sans un getCapacityAtDate par park.
+ *
+ * Pour chaque date demandée, la capacité effective de tous les parks (changement planifié qui couvre la date, sinon
+ * capacité par défaut) est triée une fois, par capacité décroissante puis parkId : une page se lit en partant du curseur
+ * et s'arrête dès que la capacité passe sous N. Les places libres sont capacité - occupation actuelle (compteurs en
+ * mémoire compris) : il n'y a pas de prévision d'occupation.
+ *
+ * Les index par date sont construits à la demande (park.availability.max-dates au plus, le moins récemment utilisé est
+ * oublié) et tiennent dans un long[] trié, soit 8 octets par park et par date. Chaque date a son propre verrou : la
+ * construction d'une date ne bloque que les recherches à cette date. Un ParkChangedEvent ne fait que marquer le park :
+ * seuls les parks marqués sont relus à la recherche suivante, et un changement d'occupation ne touche pas aux index par date.
+ */
+@Service
+public class AvailabilityIndex {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private ParkCapacityChangeRepository parkCapacityChangeRepository;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    private final int maxDates;
+
+    // nom, capacité hors planification et occupation en base, communs à toutes les dates ; null tant que non chargé
+    private volatile Map<Integer, ParkState> parks;
+    private final Object parksLock = new Object();
+    private final Set<Integer> dirtyParks = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<LocalDate, DateIndex> dates = new ConcurrentHashMap<>();
+
+    private record ParkState(String parkName, int defaultCapacity, int occupiedSpace) {
+    }
+
+    // les parks triés à une date (voir key), remplacé en entier à chaque relecture : les lecteurs n'ont pas de verrou
+    private static final class DateIndex {
+        volatile long[] keys;
+        final Set<Integer> dirtyParks = ConcurrentHashMap.newKeySet();
+        volatile long lastUsed;
+    }
+
+    public AvailabilityIndex(@Value("${park.availability.max-dates:31}") int maxDates) {
+        if (maxDates < 1) {
+            throw new IllegalArgumentException("park.availability.max-dates must be greater than zero");
+        }
+        this.maxDates = maxDates;
+    }
+
+    // capacité décroissante puis parkId croissant dans l'ordre naturel des long (capacités et ids sont positifs)
+    static long key(int capacity, int parkId) {
+        return ((long) (Integer.MAX_VALUE - capacity) << 32) | (parkId & 0xFFFFFFFFL);
+    }
+
+    private static int capacityOf(long key) {
+        return Integer.MAX_VALUE - (int) (key >>> 32);
+    }
+
+    private static int parkIdOf(long key) {
+        return (int) key;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParkChanged(ParkChangedEvent event) {
+        dirtyParks.add(event.parkId());
+        if (event.type() != ParkChangedEvent.Type.OCCUPANCY) {
+            // création, suppression, capacité par défaut ou planification : la capacité effective a pu changer à toute date
+            dates.values().forEach(index -> index.dirtyParks.add(event.parkId()));
+        }
+    }
+
+    /**
+     * Les parks avec au moins minFreeSpaces places libres à la date donnée, par capacité décroissante puis parkId,
+     * page par page : afterCapacity/afterId sont le curseur renvoyé par la page précédente.
+     */
+    public Map<String, Object> findAvailable(LocalDate date, int minFreeSpaces, Integer afterCapacity, Integer afterId, int size) {
+        if (date == null) {
+            throw new IllegalArgumentException("date is mandatory");
+        }
+        if (minFreeSpaces < 1) {
+            throw new IllegalArgumentException("minFreeSpaces must be greater than zero");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Map<Integer, ParkState> parks = refreshParks();
+        long[] keys = dateIndex(date, parks);
+
+        // sans curseur, toute la liste ; avec afterCapacity seul, tous les parks de cette capacité (parkId > 0)
+        int from = 0;
+        if (afterCapacity != null) {
+            int found = Arrays.binarySearch(keys, key(afterCapacity, afterId != null ? afterId : 0));
+            from = found >= 0 ? found + 1 : -(found + 1);
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = from; i < keys.length && items.size() < size; i++) {
+            int capacity = capacityOf(keys[i]);
+            if (capacity < minFreeSpaces) {
+                break; // tous les suivants ont encore moins de places
+            }
+            int parkId = parkIdOf(keys[i]);
+            ParkState park = parks.get(parkId);
+            if (park == null) {
+                continue; // supprimé, retiré de cet index à la prochaine recherche à cette date
+            }
+            int freeSpaces = capacity - occupiedSpace(parkId, park);
+            if (freeSpaces < minFreeSpaces) {
+                continue;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("parkId", parkId);
+            item.put("parkName", park.parkName());
+            item.put("capacity", capacity);
+            item.put("freeSpaces", freeSpaces);
+            items.add(item);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("date", date);
+        page.put("items", items);
+        if (items.size() < size) {
+            page.put("nextAfterCapacity", null);
+            page.put("nextAfterId", null);
+        } else {
+            Map<String, Object> last = items.get(items.size() - 1);
+            page.put("nextAfterCapacity", last.get("capacity"));
+            page.put("nextAfterId", last.get("parkId"));
+        }
+        return page;
+    }
+
+    private int occupiedSpace(int parkId, ParkState park) {
+        // les entrées/sorties pas encore écrites en base sont dans les compteurs en mémoire
+        Integer occupiedSpace = occupancyService.getLiveOccupiedSpace(parkId);
+        return occupiedSpace != null ? occupiedSpace : park.occupiedSpace();
+    }
+
+    // état commun : chargé une fois, puis seuls les parks marqués sont relus (requêtes courtes, verrou propre)
+    private Map<Integer, ParkState> refreshParks() {
+        Map<Integer, ParkState> current = parks;
+        if (current != null && dirtyParks.isEmpty()) {
+            return current;
+        }
+        synchronized (parksLock) {
+            if (parks == null) {
+                dirtyParks.clear(); // le chargement complet les couvre
+                Map<Integer, ParkState> loaded = new ConcurrentHashMap<>();
+                parkRepository.findAvailability().forEach(park -> loaded.put(park.getParkId(), toState(park)));
+                parks = loaded;
+                return loaded;
+            }
+            for (List<Integer> chunk : drain(dirtyParks)) {
+                Set<Integer> found = new HashSet<>();
+                for (ParkAvailabilityProjection park : parkRepository.findAvailabilityByParkIds(chunk)) {
+                    found.add(park.getParkId());
+                    parks.put(park.getParkId(), toState(park));
+                }
+                chunk.stream().filter(parkId -> !found.contains(parkId)).forEach(parks::remove);
+            }
+            return parks;
+        }
+    }
+
+    private long[] dateIndex(LocalDate date, Map<Integer, ParkState> parks) {
+        // enregistré avant la lecture : un événement reçu pendant la construction marque déjà le park
+        DateIndex index = dates.computeIfAbsent(date, key -> new DateIndex());
+        index.lastUsed = System.nanoTime();
+        long[] keys;
+        // verrou de cette date seulement : une date froide ne bloque pas les recherches aux autres dates
+        synchronized (index) {
+            if (index.keys == null) {
+                index.keys = build(date, parks);
+            } else if (!index.dirtyParks.isEmpty()) {
+                index.keys = refreshDate(index, date, parks);
+            }
+            keys = index.keys;
+        }
+        evictLeastRecentlyUsed(date);
+        return keys;
+    }
+
+    private long[] build(LocalDate date, Map<Integer, ParkState> parks) {
+        Map<Integer, Integer> scheduled = new HashMap<>();
+        parkCapacityChangeRepository.findCapacitiesAtDate(date).forEach(change -> scheduled.put(change.getParkId(), change.getNewCapacity()));
+        long[] keys = new long[parks.size()];
+        int count = 0;
+        for (Map.Entry<Integer, ParkState> park : parks.entrySet()) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2 + 1); // parks créés pendant le parcours
+            }
+            keys[count++] = key(scheduled.getOrDefault(park.getKey(), park.getValue().defaultCapacity()), park.getKey());
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    // seuls les parks marqués depuis la dernière recherche à cette date sont relus, les autres sont recopiés
+    private long[] refreshDate(DateIndex index, LocalDate date, Map<Integer, ParkState> parks) {
+        long[] keys = index.keys;
+        for (List<Integer> chunk : drain(index.dirtyParks)) {
+            Map<Integer, Integer> scheduled = new HashMap<>();
+            parkCapacityChangeRepository.findCapacitiesAtDateByParkIds(chunk, date)
+                .forEach(change -> scheduled.put(change.getParkId(), change.getNewCapacity()));
+            Set<Integer> changed = new HashSet<>(chunk);
+
+            long[] updated = new long[keys.length + chunk.size()];
+            int count = 0;
+            for (long key : keys) {
+                if (!changed.contains(parkIdOf(key))) {
+                    updated[count++] = key;
+                }
+            }
+            for (Integer parkId : chunk) {
+                ParkState park = parks.get(parkId);
+                if (park != null) {
+                    updated[count++] = key(scheduled.getOrDefault(parkId, park.defaultCapacity()), parkId);
+                }
+            }
+            keys = Arrays.copyOf(updated, count);
+            Arrays.sort(keys);
+        }
+        return keys;
+    }
+
+    private void evictLeastRecentlyUsed(LocalDate keep) {
+        while (dates.size() > maxDates) {
+            dates.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(keep))
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .ifPresent(entry -> dates.remove(entry.getKey()));
+        }
+    }
+
+    private static List<List<Integer>> drain(Set<Integer> dirty) {
+        List<Integer> parkIds = new ArrayList<>();
+        for (Integer parkId : dirty) {
+            dirty.remove(parkId);
+            parkIds.add(parkId);
+        }
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < parkIds.size(); from += REFRESH_BATCH_SIZE) {
+            chunks.add(parkIds.subList(from, Math.min(from + REFRESH_BATCH_SIZE, parkIds.size())));
+        }
+        return chunks;
+    }
+
+    private static ParkState toState(ParkAvailabilityProjection park) {
+        int defaultCapacity = park.getBaseCapacity() != null ? park.getBaseCapacity() : park.getCapacity();
+        return new ParkState(park.getParkName(), defaultCapacity, park.getOccupiedSpace());
+    }
+
+    // nombre de dates indexées (supervision)
+    public int getIndexedDates() {
+        return dates.size();
+    }
+}
@@ -0,0 +1,268 @@
+package com.stack.park.services;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stack.park.dto.ParkScheduleProjection;
+import com.stack.park.entities.JobWatermark;
+import com.stack.park.entities.ParkCapacityChange;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.JobWatermarkRepository;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
+import com.stack.park.repositories.ParkRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Recalcule Park.capacity quand un changement planifié commence ou se termine.
+ *
+ * Seuls les parks dont une borne de changement a été franchie depuis la dernière exécution (le watermark) sont relus,
+ * par paquets traités en parallèle, chacun dans sa propre transaction. Seules les capacités qui ont réellement changé
+ * sont écrites, en un batch JDBC par paquet. Le watermark n'avance que si tous les paquets ont réussi et qu'aucun park
+ * n'est resté ignoré : un passage raté est simplement rejoué au passage suivant.
+ */
+@Service
+public class CapacityRollForwardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapacityRollForwardService.class);
+
+    static final String JOB_NAME = "capacity-roll-forward";
+
+    // passages sur les parks dont la capacité a changé entre la lecture et l'écriture
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private ParkCapacityChangeRepository parkCapacityChangeRepository;
+
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private ParkCache parkCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    private final Timer runTimer;
+    private final Counter parksChecked;
+    private final Counter parksUpdated;
+    private final Counter parksSkipped;
+    private final Counter failures;
+    private final AtomicLong lastRunEpochDay = new AtomicLong(-1);
+
+    public CapacityRollForwardService(@Value("${park.capacity-rollforward.chunk-size:500}") int chunkSize,
+                                      @Value("${park.capacity-rollforward.threads:4}") int threads,
+                                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                      MeterRegistry meterRegistry) {
+        if (chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("park.capacity-rollforward.chunk-size and threads must be greater than zero");
+        }
+        this.chunkSize = chunkSize;
+        // toujours borné à threads paquets simultanés (une connexion chacun), sur des threads virtuels si le mode est activé
+        ThreadFactory threadFactory = virtualThreads
+            ? Thread.ofVirtual().name("capacity-rollforward-", 0).factory()
+            : Thread.ofPlatform().name("capacity-rollforward-", 0).daemon(true).factory();
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+
+        this.runTimer = Timer.builder("park.capacity.rollforward.duration")
+            .description("Durée d'un passage du recalcul des capacités").register(meterRegistry);
+        this.parksChecked = Counter.builder("park.capacity.rollforward.parks").tag("result", "checked").register(meterRegistry);
+        this.parksUpdated = Counter.builder("park.capacity.rollforward.parks").tag("result", "updated").register(meterRegistry);
+        this.parksSkipped = Counter.builder("park.capacity.rollforward.parks").tag("result", "skipped").register(meterRegistry);
+        this.failures = Counter.builder("park.capacity.rollforward.failures").register(meterRegistry);
+        // nombre de jours depuis le dernier passage réussi (-1 tant qu'aucun passage n'a eu lieu depuis le démarrage)
+        Gauge.builder("park.capacity.rollforward.watermark.lag.days", lastRunEpochDay,
+                day -> day.get() < 0 ? -1 : LocalDate.now().toEpochDay() - day.get())
+            .register(meterRegistry);
+    }
+
+    /**
+     * Lancé toutes les heures par défaut : le premier passage après minuit fait le travail,
+     * les suivants s'arrêtent sur le watermark (et rattrapent un passage manqué si l'application était arrêtée).
+     */
+    @Scheduled(cron = "${park.capacity-rollforward.cron:0 5 * * * *}")
+    public void scheduledRun() {
+        try {
+            rollForward(LocalDate.now());
+        } catch (RuntimeException ex) {
+            logger.error("Capacity roll-forward failed, will retry on next run", ex);
+        }
+    }
+
+    public Map<String, Object> rollForward(LocalDate today) {
+        return runTimer.record(() -> doRollForward(today));
+    }
+
+    private Map<String, Object> doRollForward(LocalDate today) {
+        JobWatermark watermark = jobWatermarkRepository.findById(JOB_NAME).orElseGet(() -> new JobWatermark(JOB_NAME));
+        // premier passage : toutes les bornes déjà franchies sont rejouées
+        LocalDate after = watermark.getLastRunDate() != null ? watermark.getLastRunDate() : LocalDate.EPOCH;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("from", after);
+        report.put("to", today);
+        if (!after.isBefore(today)) {
+            lastRunEpochDay.set(after.toEpochDay());
+            report.put("checked", 0);
+            report.put("updated", 0);
+            return report;
+        }
+
+        List<Integer> parkIds = parkCapacityChangeRepository.findParkIdsWithBoundaryBetween(after, today);
+        parksChecked.increment(parkIds.size());
+
+        // les parks ignorés (capacité modifiée entre la lecture et l'écriture) sont relus et recalculés
+        int updated = 0;
+        List<Integer> pending = parkIds;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            List<Integer> skipped = Collections.synchronizedList(new ArrayList<>());
+            updated += rollForwardParks(pending, today, skipped);
+            pending = skipped;
+        }
+        if (!pending.isEmpty()) {
+            // le watermark reste en place : ces parks seront repris au passage suivant
+            logger.warn("Capacity roll-forward to {}: {} parks still modified concurrently, will retry on next run", today, pending.size());
+            report.put("checked", parkIds.size());
+            report.put("updated", updated);
+            report.put("skipped", pending.size());
+            return report;
+        }
+
+        watermark.setLastRunDate(today);
+        watermark.setLastRunAt(LocalDateTime.now());
+        watermark.setParksChecked(parkIds.size());
+        watermark.setParksUpdated(updated);
+        jobWatermarkRepository.save(watermark);
+        lastRunEpochDay.set(today.toEpochDay());
+
+        logger.info("Capacity roll-forward to {}: {} parks checked, {} updated", today, parkIds.size(), updated);
+        report.put("checked", parkIds.size());
+        report.put("updated", updated);
+        return report;
+    }
+
+    // retourne le nombre de parks dont la capacité a été écrite, les parks ignorés sont ajoutés à skipped
+    private int rollForwardParks(List<Integer> parkIds, LocalDate today, List<Integer> skipped) {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int from = 0; from < parkIds.size(); from += chunkSize) {
+            List<Integer> chunk = parkIds.subList(from, Math.min(from + chunkSize, parkIds.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> rollForwardChunk(chunk, today, skipped)), executor));
+        }
+
+        int updated = 0;
+        RuntimeException failure = null;
+        for (CompletableFuture<Integer> future : futures) {
+            try {
+                updated += future.join();
+            } catch (RuntimeException ex) {
+                failures.increment();
+                failure = ex;
+            }
+        }
+        parksUpdated.increment(updated);
+        if (failure != null) {
+            // les paquets réussis sont déjà écrits, le passage suivant les retrouvera simplement à jour
+            throw failure;
+        }
+        return updated;
+    }
+
+    private int rollForwardChunk(List<Integer> parkIds, LocalDate today, List<Integer> skipped) {
+        // 2 requêtes par paquet : les parks (projection), puis les changements qui couvrent aujourd'hui
+        Map<Integer, Integer> capacityToday = new HashMap<>();
+        for (ParkCapacityChange change : parkCapacityChangeRepository.findByParkIdsBetweenDates(parkIds, today, today)) {
+            capacityToday.put(change.getPark().getParkId(), change.getNewCapacity());
+        }
+
+        List<Object[]> changed = new ArrayList<>();
+        for (ParkScheduleProjection park : parkRepository.findScheduleByParkIds(parkIds)) {
+            Integer fallback = park.getBaseCapacity() != null ? park.getBaseCapacity() : park.getCapacity();
+            Integer capacity = capacityToday.getOrDefault(park.getParkId(), fallback);
+            if (!capacity.equals(park.getCapacity())) {
+                changed.add(new Object[] { park.getParkId(), capacity, park.getCapacity() });
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // condition sur l'ancienne capacité et pas sur la version : les écritures d'occupation incrémentent la version
+        // sans toucher à la capacité et ne doivent pas bloquer le recalcul. La version est tout de même incrémentée
+        // pour qu'un PUT lu avant ce recalcul soit refusé.
+        int[][] counts = jdbcTemplate.batchUpdate(
+            "UPDATE park SET capacity = ?, version = version + 1, last_modified_date = ? WHERE park_id = ? AND capacity = ?",
+            changed, changed.size(),
+            (PreparedStatement ps, Object[] row) -> {
+                ps.setInt(1, (Integer) row[1]);
+                ps.setTimestamp(2, now);
+                ps.setInt(3, (Integer) row[0]);
+                ps.setInt(4, (Integer) row[2]);
+            });
+
+        int updated = 0;
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Integer parkId = (Integer) changed.get(index++)[0];
+                if (count == 0) {
+                    parksSkipped.increment();
+                    skipped.add(parkId);
+                    continue;
+                }
+                updated++;
+                occupancyService.release(parkId); // le compteur garde l'ancienne capacité : rechargé au prochain événement
+                parkCache.invalidate(parkId);
+                eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.CAPACITY));
+            }
+        }
+        return updated;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
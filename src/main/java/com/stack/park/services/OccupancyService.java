@@ -0,0 +1,425 @@
+package com.stack.park.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.stack.park.dto.ParkOccupancyProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.exceptions.NotFoundException;
+import com.stack.park.exceptions.OccupancyConflictException;
+import com.stack.park.repositories.ParkRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Entrées/sorties de véhicules comptées en mémoire, puis écrites en base par lots (write-behind).
+ *
+ * Chaque park a son propre compteur (une entrée par park dans une ConcurrentHashMap) : deux parks ne se bloquent jamais,
+ * et la vérification occupiedSpace <= capacity se fait par compare-and-set sans verrou.
+ * Les deltas accumulés depuis la dernière écriture sont appliqués toutes les park.occupancy.flush-interval-ms
+ * en un seul batch JDBC au lieu d'une transaction par véhicule.
+ *
+ * Un compteur oublié (release, delta refusé par la base) est d'abord retiré : son delta en attente est pris en une
+ * opération atomique, plus aucune entrée/sortie ne peut s'y ajouter, et les événements suivants attendent que l'écriture
+ * de ce delta soit commitée avant de recharger un compteur depuis la base.
+ */
+@Service
+public class OccupancyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyService.class);
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ParkCache parkCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentHashMap<Integer, OccupancyCounter> counters = new ConcurrentHashMap<>();
+    // deltas dont l'écriture a échoué alors que leur compteur était déjà retiré : réessayés au prochain flush
+    private final Queue<int[]> unflushedDeltas = new ConcurrentLinkedQueue<>();
+
+    static class OccupancyCounter {
+        static final int RETIRED = Integer.MIN_VALUE;
+
+        final int capacity;
+        // occupation (32 bits de poids fort) et variation pas encore écrite en base (32 bits de poids faible),
+        // modifiées ensemble par un seul compare-and-set ; occupation RETIRED quand le compteur est retiré
+        private final AtomicLong state;
+        // terminé quand le delta du compteur retiré est commité et le compteur enlevé de la map, ou quand le retrait est annulé.
+        // Un nouveau futur à chaque retire() : un compteur rétabli puis retiré de nouveau ne doit pas réveiller les attentes
+        // sur un futur déjà terminé
+        private volatile CompletableFuture<Void> released = new CompletableFuture<>();
+        // un compteur retiré n'est enlevé de la map qu'une fois son release commité et les écritures de flush en cours
+        // terminées : sinon un compteur rechargé pourrait lire la base sans le delta que flush est en train d'écrire
+        private int flushesInFlight;
+        private boolean releaseCommitted;
+
+        OccupancyCounter(int capacity, int occupied) {
+            this.capacity = capacity;
+            this.state = new AtomicLong(pack(occupied, 0));
+        }
+
+        private static long pack(int occupied, int pendingDelta) {
+            return ((long) occupied << 32) | (pendingDelta & 0xFFFFFFFFL);
+        }
+
+        private static int occupied(long state) {
+            return (int) (state >> 32);
+        }
+
+        static int pendingDelta(long state) {
+            return (int) state;
+        }
+
+        // retourne la nouvelle occupation, -1 si la variation sortirait de [0, capacity], RETIRED si le compteur est retiré
+        int tryAdjust(int delta) {
+            while (true) {
+                long current = state.get();
+                int occupied = occupied(current);
+                if (occupied == RETIRED) {
+                    return RETIRED;
+                }
+                int next = occupied + delta;
+                if (next < 0 || next > capacity) {
+                    return -1;
+                }
+                if (state.compareAndSet(current, pack(next, pendingDelta(current) + delta))) {
+                    return next;
+                }
+            }
+        }
+
+        // occupation en mémoire, null si le compteur est retiré
+        Integer occupied() {
+            int occupied = occupied(state.get());
+            return occupied == RETIRED ? null : occupied;
+        }
+
+        // prend la variation en attente (remise à 0), 0 si le compteur est retiré
+        int takePendingDelta() {
+            while (true) {
+                long current = state.get();
+                if (occupied(current) == RETIRED || pendingDelta(current) == 0) {
+                    return 0;
+                }
+                if (state.compareAndSet(current, pack(occupied(current), 0))) {
+                    return pendingDelta(current);
+                }
+            }
+        }
+
+        // remet une variation prise par takePendingDelta (écriture ratée), false si le compteur a été retiré entre-temps
+        boolean restorePendingDelta(int delta) {
+            while (true) {
+                long current = state.get();
+                if (occupied(current) == RETIRED) {
+                    return false;
+                }
+                if (state.compareAndSet(current, pack(occupied(current), pendingDelta(current) + delta))) {
+                    return true;
+                }
+            }
+        }
+
+        // retire le compteur et retourne son état d'avant (occupation et variation en attente), null s'il était déjà retiré
+        // synchronized avec reinstate : le futur est remplacé une seule fois par retrait, avant que RETIRED soit visible
+        synchronized Long retire() {
+            if (occupied(state.get()) == RETIRED) {
+                return null;
+            }
+            released = new CompletableFuture<>();
+            while (true) {
+                long current = state.get();
+                if (state.compareAndSet(current, pack(RETIRED, 0))) {
+                    return current;
+                }
+            }
+        }
+
+        // à appeler après avoir lu RETIRED : le futur du retrait en cours (ou d'un retrait plus récent)
+        CompletableFuture<Void> released() {
+            return released;
+        }
+
+        synchronized void startFlush() {
+            flushesInFlight++;
+        }
+
+        // true quand le compteur peut être enlevé de la map
+        synchronized boolean endFlush() {
+            flushesInFlight--;
+            return releaseCommitted && flushesInFlight == 0;
+        }
+
+        synchronized boolean commitRelease() {
+            releaseCommitted = true;
+            return flushesInFlight == 0;
+        }
+
+        // annule retire() : l'écriture du delta n'a pas eu lieu ou a été annulée avec la transaction
+        synchronized void reinstate(long previousState) {
+            state.set(previousState);
+            released.complete(null);
+        }
+    }
+
+    public Map<String, Object> recordEntry(Integer parkId, int count) {
+        validateCount(count);
+        return adjust(parkId, count, "Park is full");
+    }
+
+    public Map<String, Object> recordExit(Integer parkId, int count) {
+        validateCount(count);
+        return adjust(parkId, -count, "Park is already empty");
+    }
+
+    private void validateCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be greater than zero");
+        }
+    }
+
+    private Map<String, Object> adjust(Integer parkId, int delta, String conflictMessage) {
+        while (true) {
+            OccupancyCounter counter = counters.computeIfAbsent(parkId, this::loadCounter);
+
+            int occupied = counter.tryAdjust(delta);
+            if (occupied == OccupancyCounter.RETIRED) {
+                // delta du compteur en cours d'écriture : recharger maintenant lirait la base sans lui
+                counter.released().join();
+                continue;
+            }
+            if (occupied < 0) {
+                throw new OccupancyConflictException(conflictMessage);
+            }
+            eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.OCCUPANCY));
+
+            Map<String, Object> occupancy = new LinkedHashMap<>();
+            occupancy.put("parkId", parkId);
+            occupancy.put("occupiedSpace", occupied);
+            occupancy.put("capacity", counter.capacity);
+            return occupancy;
+        }
+    }
+
+    private OccupancyCounter loadCounter(Integer parkId) {
+        ParkOccupancyProjection park = parkRepository.findOccupancyByParkId(parkId)
+            .orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
+        return new OccupancyCounter(park.getCapacity(), park.getOccupiedSpace());
+    }
+
+    // occupation en mémoire (avec les entrées/sorties pas encore écrites), null si le park n'a pas de compteur
+    public Integer getLiveOccupiedSpace(Integer parkId) {
+        OccupancyCounter counter = counters.get(parkId);
+        return counter != null ? counter.occupied() : null;
+    }
+
+    /**
+     * Écrit le delta en attente d'un park puis oublie son compteur.
+     * À appeler avant toute écriture qui change la capacité ou l'occupation du park par un autre chemin,
+     * le compteur sera rechargé depuis la base au prochain événement (après le commit de la transaction en cours).
+     */
+    public void release(Integer parkId) {
+        releaseAll(List.of(parkId));
+    }
+
+    // release() pour plusieurs parks, les deltas en attente écrits en un seul batch
+    public void releaseAll(Collection<Integer> parkIds) {
+        Map<Integer, OccupancyCounter> retired = new LinkedHashMap<>();
+        Map<Integer, Long> previousStates = new LinkedHashMap<>();
+        List<int[]> deltas = new ArrayList<>();
+        for (Integer parkId : parkIds) {
+            OccupancyCounter counter = counters.get(parkId);
+            Long previousState = counter != null ? counter.retire() : null;
+            if (previousState == null) {
+                continue; // pas de compteur, ou déjà retiré par un autre appel qui écrit son delta
+            }
+            retired.put(parkId, counter);
+            previousStates.put(parkId, previousState);
+            int delta = OccupancyCounter.pendingDelta(previousState);
+            if (delta != 0) {
+                deltas.add(new int[] { parkId, delta });
+            }
+        }
+        if (retired.isEmpty()) {
+            return;
+        }
+
+        // rien d'écrit (erreur ou rollback) : les compteurs retrouvent leur état, deltas en attente compris
+        Runnable reinstate = () -> retired.forEach((parkId, counter) -> counter.reinstate(previousStates.get(parkId)));
+        try {
+            if (!deltas.isEmpty()) {
+                writeDeltas(deltas);
+            }
+        } catch (RuntimeException ex) {
+            reinstate.run();
+            throw ex;
+        }
+        afterCommit(() -> retired.forEach((parkId, counter) -> {
+            if (counter.commitRelease()) {
+                remove(parkId, counter);
+            }
+        }), reinstate);
+    }
+
+    private void remove(Integer parkId, OccupancyCounter counter) {
+        counters.remove(parkId, counter);
+        counter.released().complete(null);
+    }
+
+    private void endFlush(Integer parkId, OccupancyCounter counter) {
+        if (counter.endFlush()) {
+            remove(parkId, counter);
+        }
+    }
+
+    // après le commit de la transaction en cours (tout de suite s'il n'y en a pas), onRollback si elle est annulée
+    private static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${park.occupancy.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Integer, OccupancyCounter> flushed = new HashMap<>();
+        List<int[]> deltas = new ArrayList<>();
+        for (int[] delta; (delta = unflushedDeltas.poll()) != null; ) {
+            deltas.add(delta);
+        }
+        counters.forEach((parkId, counter) -> {
+            counter.startFlush();
+            int delta = counter.takePendingDelta();
+            if (delta != 0) {
+                flushed.put(parkId, counter);
+                deltas.add(new int[] { parkId, delta });
+            } else {
+                endFlush(parkId, counter);
+            }
+        });
+
+        for (int from = 0; from < deltas.size(); from += FLUSH_BATCH_SIZE) {
+            List<int[]> batch = deltas.subList(from, Math.min(from + FLUSH_BATCH_SIZE, deltas.size()));
+            try {
+                for (Integer parkId : writeDeltas(batch)) {
+                    OccupancyCounter counter = flushed.get(parkId);
+                    if (counter != null) {
+                        forget(parkId, counter);
+                    }
+                }
+            } catch (RuntimeException ex) {
+                // on remet les deltas en attente pour le prochain passage plutôt que de les perdre
+                logger.warn("Failed to flush occupancy for {} parks, will retry", batch.size(), ex);
+                for (int[] delta : batch) {
+                    OccupancyCounter counter = flushed.get(delta[0]);
+                    if (counter == null || !counter.restorePendingDelta(delta[1])) {
+                        unflushedDeltas.add(delta); // compteur retiré entre-temps : le delta est gardé à part
+                    }
+                }
+            } finally {
+                for (int[] delta : batch) {
+                    OccupancyCounter counter = flushed.get(delta[0]);
+                    if (counter != null) {
+                        endFlush(delta[0], counter);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // le compteur est faux (delta refusé par la base) : retiré, les entrées/sorties arrivées depuis sont quand même
+    // écrites (la base les vérifie), puis rechargé depuis la base au prochain événement
+    private void forget(Integer parkId, OccupancyCounter counter) {
+        Long previousState = counter.retire();
+        if (previousState == null) {
+            return; // déjà retiré par release()
+        }
+        int delta = OccupancyCounter.pendingDelta(previousState);
+        try {
+            if (delta != 0) {
+                writeDeltas(List.of(new int[] { parkId, delta }));
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to write occupancy for park {}, will retry", parkId, ex);
+            unflushedDeltas.add(new int[] { parkId, delta });
+        }
+        counter.commitRelease(); // enlevé de la map à la fin de l'écriture du flush en cours
+    }
+
+    // retourne les parks dont le delta a été refusé par la base
+    private List<Integer> writeDeltas(List<int[]> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // même condition que ParkRepository.adjustOccupiedSpace : une autre instance ou un PUT a pu changer le park entre-temps
+        int[][] updated = jdbcTemplate.batchUpdate(
+            "UPDATE park SET occupied_space = occupied_space + ?, version = version + 1, last_modified_date = ? "
+                + "WHERE park_id = ? AND occupied_space + ? >= 0 AND occupied_space + ? <= capacity",
+            deltas, deltas.size(),
+            (ps, delta) -> {
+                ps.setInt(1, delta[1]);
+                ps.setTimestamp(2, now);
+                ps.setInt(3, delta[0]);
+                ps.setInt(4, delta[1]);
+                ps.setInt(5, delta[1]);
+            });
+
+        List<Integer> rejected = new ArrayList<>();
+        int index = 0;
+        for (int[] counts : updated) {
+            for (int count : counts) {
+                int[] delta = deltas.get(index++);
+                if (count == 0) {
+                    // delta refusé par la base : le compteur en mémoire est faux, il sera rechargé au prochain événement
+                    logger.warn("Occupancy delta {} rejected for park {}, counter reloaded", delta[1], delta[0]);
+                    rejected.add(delta[0]);
+                }
+                parkCache.invalidate(delta[0]);
+            }
+        }
+        return rejected;
+    }
+}
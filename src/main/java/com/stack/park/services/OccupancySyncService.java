@@ -0,0 +1,183 @@
+package com.stack.park.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.stack.park.dto.OccupancySyncRecord;
+import com.stack.park.dto.ParkSensorSequenceProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.ParkRepository;
+
+/**
+ * Synchronisation des compteurs des contrôleurs de barrière, qui remontent par lots les entrées/sorties
+ * enregistrées hors ligne.
+ *
+ * Les variations d'un même park sont additionnées. Celles dont la séquence est déjà appliquée (park.last_sensor_sequence)
+ * ou répétée dans le lot sont écartées : renvoyer un lot après un échec ne compte rien deux fois. Un lot coûte trois
+ * requêtes quel que soit le nombre de parks : lecture des séquences, un batch d'UPDATE conditionnels, écriture des
+ * compteurs en mémoire.
+ *
+ * Un contrôleur doit envoyer ses lots dans l'ordre des séquences : un enregistrement plus ancien que la dernière
+ * séquence appliquée est considéré comme déjà reçu.
+ */
+@Service
+public class OccupancySyncService {
+
+    static final int MAX_RECORDS = 10000;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private ParkCache parkCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // variations d'un park dans le lot, par séquence
+    private record ParkDeltas(Integer parkId, TreeMap<Long, Integer> bySequence) {
+    }
+
+    @Transactional
+    public Map<String, Object> sync(List<OccupancySyncRecord> records) {
+        validate(records);
+
+        int duplicates = 0;
+        Map<Integer, ParkDeltas> byPark = new LinkedHashMap<>();
+        for (OccupancySyncRecord record : records) {
+            ParkDeltas deltas = byPark.computeIfAbsent(record.getParkId(), id -> new ParkDeltas(id, new TreeMap<>()));
+            if (deltas.bySequence().putIfAbsent(record.getSequence(), record.getDelta()) != null) {
+                duplicates++;
+            }
+        }
+
+        Map<Integer, Long> lastSequences = new HashMap<>();
+        for (ParkSensorSequenceProjection park : parkRepository.findSensorSequenceByParkIds(byPark.keySet())) {
+            // -1 : aucune séquence encore appliquée (les séquences sont >= 0)
+            lastSequences.put(park.getParkId(), park.getLastSensorSequence() != null ? park.getLastSensorSequence() : -1L);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Map<String, Object>> updateResults = new ArrayList<>();
+        for (ParkDeltas deltas : byPark.values()) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("parkId", deltas.parkId());
+            results.add(result);
+
+            Long lastSequence = lastSequences.get(deltas.parkId());
+            if (lastSequence == null) {
+                // un park inconnu est signalé sur sa ligne sans faire échouer tout le lot
+                result.put("status", "not_found");
+                continue;
+            }
+
+            Map<Long, Integer> fresh = deltas.bySequence().tailMap(lastSequence, false);
+            duplicates += deltas.bySequence().size() - fresh.size();
+            if (fresh.isEmpty()) {
+                result.put("status", "duplicate");
+                result.put("lastSequence", lastSequence);
+                continue;
+            }
+
+            int netDelta = fresh.values().stream().mapToInt(Integer::intValue).sum();
+            Long newSequence = deltas.bySequence().lastKey();
+            result.put("records", fresh.size());
+            result.put("delta", netDelta);
+            result.put("lastSequence", newSequence);
+            updates.add(new Object[] { deltas.parkId(), netDelta, newSequence, lastSequence });
+            updateResults.add(result);
+        }
+
+        List<Integer> applied = applyDeltas(updates, updateResults);
+        if (!applied.isEmpty()) {
+            // les compteurs en mémoire ne connaissent pas ces variations : écrits puis rechargés au prochain événement
+            occupancyService.releaseAll(applied);
+            for (Integer parkId : applied) {
+                parkCache.invalidate(parkId);
+                eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.OCCUPANCY));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("received", records.size());
+        report.put("duplicates", duplicates);
+        report.put("applied", applied.size());
+        report.put("parks", results);
+        return report;
+    }
+
+    // retourne les parks dont l'occupation a été écrite
+    private List<Integer> applyDeltas(List<Object[]> updates, List<Map<String, Object>> updateResults) {
+        if (updates.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // l'occupation est ramenée dans [0, capacity] : les capteurs dérivent, et refuser le lot bloquerait ses séquences à jamais
+        // condition sur la séquence lue : un envoi concurrent du même lot ne peut pas être appliqué deux fois
+        int[][] counts = jdbcTemplate.batchUpdate(
+            "UPDATE park SET occupied_space = LEAST(GREATEST(occupied_space + ?, 0), capacity), last_sensor_sequence = ?, "
+                + "version = version + 1, last_modified_date = ? WHERE park_id = ? AND COALESCE(last_sensor_sequence, -1) = ?",
+            updates, updates.size(),
+            (ps, row) -> {
+                ps.setInt(1, (Integer) row[1]);
+                ps.setLong(2, (Long) row[2]);
+                ps.setTimestamp(3, now);
+                ps.setInt(4, (Integer) row[0]);
+                ps.setLong(5, (Long) row[3]);
+            });
+
+        List<Integer> applied = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Map<String, Object> result = updateResults.get(index);
+                if (count == 0) {
+                    // un autre envoi a avancé la séquence entre-temps : renvoyer le lot est sans risque
+                    result.put("status", "conflict");
+                } else {
+                    result.put("status", "applied");
+                    applied.add((Integer) updates.get(index)[0]);
+                }
+                index++;
+            }
+        }
+        return applied;
+    }
+
+    private void validate(List<OccupancySyncRecord> records) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("At least one record is required");
+        }
+        if (records.size() > MAX_RECORDS) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_RECORDS + " records");
+        }
+        for (int i = 0; i < records.size(); i++) {
+            OccupancySyncRecord record = records.get(i);
+            if (record == null || record.getParkId() == null || record.getDelta() == null || record.getSequence() == null) {
+                throw new IllegalArgumentException("Record " + i + ": parkId, delta and sequence are mandatory");
+            }
+            if (record.getSequence() < 0) {
+                throw new IllegalArgumentException("Record " + i + ": sequence cannot be negative");
+            }
+        }
+    }
+}
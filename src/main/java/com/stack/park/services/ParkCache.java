@@ -0,0 +1,123 @@
+package com.stack.park.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.stack.park.entities.Park;
+import com.stack.park.timeline.CapacityTimeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache en lecture devant ParkRepository pour les parks et leurs index de capacité.
+ *
+ * Les entrées sont bornées en taille et expirent après un TTL. Les valeurs mises en cache sont partagées
+ * entre les requêtes : chaque lecture reçoit donc une copie détachée du park (l'index, lui, n'est jamais modifié),
+ * toute écriture passe par la base puis invalide l'entrée.
+ */
+@Component
+public class ParkCache {
+
+    private final Cache<Integer, Park> parks;
+    private final Cache<Integer, CapacityTimeline> timelines;
+
+    public ParkCache(@Value("${park.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${park.cache.ttl:10m}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.parks = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+        this.timelines = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+
+        // expose cache.gets{result=hit|miss}, cache.evictions... dans /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, parks, "parks");
+        CaffeineCacheMetrics.monitor(meterRegistry, timelines, "parkTimelines");
+    }
+
+    /**
+     * @param loader appelé seulement en cas de miss, peut retourner null si le park n'existe pas (rien n'est mis en cache)
+     * @return une copie du park que l'appelant peut modifier sans toucher au cache, sans ses changements de capacité
+     * (voir getTimeline)
+     */
+    public Park getPark(Integer parkId, Function<Integer, Park> loader) {
+        // le cache garde sa propre copie : ni l'entité gérée du loader ni celle rendue à l'appelant
+        Park cached = parks.get(parkId, id -> {
+            Park park = loader.apply(id);
+            return park != null ? copyOf(park) : null;
+        });
+        return cached != null ? copyOf(cached) : null;
+    }
+
+    public CapacityTimeline getTimeline(Integer parkId, Function<Integer, CapacityTimeline> loader) {
+        return timelines.get(parkId, loader);
+    }
+
+    /**
+     * Invalide le park et son index. Dans une transaction, l'invalidation est rejouée après le commit
+     * pour qu'une lecture concurrente ne remette pas en cache l'état d'avant la modification.
+     */
+    public void invalidate(Integer parkId) {
+        if (parkId == null) {
+            return;
+        }
+        evict(parkId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(parkId);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parks", toMap(parks));
+        stats.put("parkTimelines", toMap(timelines));
+        return stats;
+    }
+
+    private void evict(Integer parkId) {
+        parks.invalidate(parkId);
+        timelines.invalidate(parkId);
+    }
+
+    // champs simples seulement : capacityChanges est une collection paresseuse de l'entité chargée, inutilisable hors session
+    private static Park copyOf(Park park) {
+        Park copy = new Park();
+        copy.setParkId(park.getParkId());
+        copy.setParkName(park.getParkName());
+        copy.setCapacity(park.getCapacity());
+        copy.setBaseCapacity(park.getBaseCapacity());
+        copy.setOccupiedSpace(park.getOccupiedSpace());
+        copy.setLatitude(park.getLatitude());
+        copy.setLongitude(park.getLongitude());
+        copy.setLastSensorSequence(park.getLastSensorSequence());
+        copy.setVersion(park.getVersion());
+        copy.setCreatedDate(park.getCreatedDate());
+        copy.setLastModifiedDate(park.getLastModifiedDate());
+        return copy;
+    }
+
+    private static Map<String, Object> toMap(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", cache.estimatedSize());
+        values.put("hitRate", stats.hitRate());
+        values.put("missRate", stats.missRate());
+        values.put("hitCount", stats.hitCount());
+        values.put("missCount", stats.missCount());
+        values.put("evictionCount", stats.evictionCount());
+        return values;
+    }
+}
@@ -0,0 +1,162 @@
+package com.stack.park.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.stack.park.dto.ParkGeoProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.geo.GeoGrid;
+import com.stack.park.repositories.ParkRepository;
+
+/**
+ * Index en mémoire des parks géolocalisés, pour la recherche des parks libres les plus proches sans parcourir la table.
+ *
+ * Chargé au démarrage, puis tenu à jour par les ParkChangedEvent : comme pour ParkUpdatePublisher, un événement ne fait
+ * que marquer le park, et les parks marqués sont relus en une requête toutes les park.geo.refresh-interval-ms.
+ * Les places libres tiennent compte des entrées/sorties encore en mémoire dans OccupancyService.
+ */
+@Service
+public class ParkGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkGeoIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    public static final int MAX_RESULTS = 100;
+
+    // borne le nombre d'anneaux parcourus dans la grille : au-delà, une recherche "la plus proche" n'a plus de sens
+    public static final double MAX_DISTANCE_KM = 200;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    private final GeoGrid<ParkLocation> grid;
+    private final Set<Integer> dirtyParks = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    public record ParkLocation(Integer parkId, String parkName, double latitude, double longitude, int capacity, int occupiedSpace) {
+    }
+
+    public ParkGeoIndex(@Value("${park.geo.cell-degrees:0.05}") double cellDegrees) {
+        this.grid = new GeoGrid<>(cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int afterId = 0;
+        List<ParkGeoProjection> page;
+        do {
+            page = parkRepository.findGeoPage(afterId, Limit.of(LOAD_BATCH_SIZE));
+            page.forEach(this::index);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getParkId();
+            }
+        } while (page.size() == LOAD_BATCH_SIZE);
+        loaded = true;
+        logger.info("Geo index loaded with {} parks", grid.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParkChanged(ParkChangedEvent event) {
+        dirtyParks.add(event.parkId());
+    }
+
+    @Scheduled(fixedDelayString = "${park.geo.refresh-interval-ms:500}")
+    public void refresh() {
+        // avant la fin du chargement, les parks marqués attendent : le chargement pourrait écraser un état plus récent
+        if (!loaded || dirtyParks.isEmpty()) {
+            return;
+        }
+        List<Integer> parkIds = new ArrayList<>();
+        for (Integer parkId : dirtyParks) {
+            dirtyParks.remove(parkId);
+            parkIds.add(parkId);
+        }
+
+        for (int from = 0; from < parkIds.size(); from += LOAD_BATCH_SIZE) {
+            List<Integer> chunk = parkIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, parkIds.size()));
+            Set<Integer> found = new HashSet<>();
+            for (ParkGeoProjection park : parkRepository.findGeoByParkIds(chunk)) {
+                found.add(park.getParkId());
+                index(park);
+            }
+            // supprimés
+            chunk.stream().filter(parkId -> !found.contains(parkId)).forEach(grid::remove);
+        }
+    }
+
+    private void index(ParkGeoProjection park) {
+        if (park.getLatitude() == null || park.getLongitude() == null) {
+            grid.remove(park.getParkId());
+            return;
+        }
+        grid.put(park.getParkId(), park.getLatitude(), park.getLongitude(), new ParkLocation(park.getParkId(), park.getParkName(),
+            park.getLatitude(), park.getLongitude(), park.getCapacity(), park.getOccupiedSpace()));
+    }
+
+    /**
+     * Les parks les plus proches avec au moins minFreeSpaces places libres, du plus proche au plus lointain.
+     */
+    public List<Map<String, Object>> findNearest(double latitude, double longitude, int limit, int minFreeSpaces, double maxDistanceKm) {
+        if (latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90");
+        }
+        if (longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180");
+        }
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RESULTS);
+        }
+        if (minFreeSpaces < 1) {
+            throw new IllegalArgumentException("minFreeSpaces must be greater than zero");
+        }
+        if (!(maxDistanceKm > 0 && maxDistanceKm <= MAX_DISTANCE_KM)) {
+            throw new IllegalArgumentException("maxDistanceKm must be greater than zero and at most " + (int) MAX_DISTANCE_KM);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (GeoGrid.Neighbour<ParkLocation> neighbour : grid.nearest(latitude, longitude, limit, maxDistanceKm,
+                location -> freeSpaces(location) >= minFreeSpaces)) {
+            ParkLocation location = neighbour.value();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("parkId", location.parkId());
+            result.put("parkName", location.parkName());
+            result.put("latitude", location.latitude());
+            result.put("longitude", location.longitude());
+            result.put("distanceKm", Math.round(neighbour.distanceKm() * 1000) / 1000.0);
+            result.put("capacity", location.capacity());
+            result.put("freeSpaces", freeSpaces(location));
+            results.add(result);
+        }
+        return results;
+    }
+
+    private int freeSpaces(ParkLocation location) {
+        // les entrées/sorties pas encore écrites en base sont dans les compteurs en mémoire
+        Integer occupiedSpace = occupancyService.getLiveOccupiedSpace(location.parkId());
+        return location.capacity() - (occupiedSpace != null ? occupiedSpace : location.occupiedSpace());
+    }
+
+    public int size() {
+        return grid.size();
+    }
+}
@@ -0,0 +1,561 @@
+package com.stack.park.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stack.park.entities.Park;
+import com.stack.park.entities.ParkCapacityChange;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
+import com.stack.park.repositories.ParkRepository;
+import com.stack.park.timeline.CapacityTimeline;
+import com.stack.park.timeline.CapacityTimelineMerger;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Import de parks en masse (CSV ou NDJSON).
+ *
+ * Park utilise GenerationType.IDENTITY, ce qui empêche Hibernate de regrouper les INSERT : l'import passe donc par des
+ * batchs JDBC (le driver peut les réécrire en INSERT multi-lignes avec rewriteBatchedStatements / reWriteBatchedInserts).
+ * L'unicité des noms est vérifiée pour tout le fichier avec des requêtes IN par paquets, et chaque ligne invalide
+ * est rapportée avec son numéro sans bloquer les autres.
+ */
+@Service
+public class ParkImportService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ParkCapacityChangeRepository parkCapacityChangeRepository;
+
+    @Autowired
+    private ParkCache parkCache;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ParkMetrics parkMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // une ligne lue du fichier, avec son numéro pour le rapport d'erreurs
+    private record ParkRow(int line, String parkName, Integer capacity, Integer occupiedSpace, Double latitude, Double longitude) {
+    }
+
+    private record ScheduleRow(int line, Integer parkId, Integer newCapacity, LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * CSV avec en-tête : parkName,capacity[,occupiedSpace][,latitude,longitude]
+     */
+    @Transactional
+    public Map<String, Object> importCsv(InputStream input) throws IOException {
+        List<ParkRow> rows = new ArrayList<>();
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            List<String> columns = parseCsvLine(header).stream().map(String::trim).toList();
+            int nameIndex = columns.indexOf("parkName");
+            int capacityIndex = columns.indexOf("capacity");
+            int occupiedIndex = columns.indexOf("occupiedSpace");
+            int latitudeIndex = columns.indexOf("latitude");
+            int longitudeIndex = columns.indexOf("longitude");
+            if (nameIndex < 0 || capacityIndex < 0) {
+                throw new IllegalArgumentException("CSV header must contain parkName and capacity");
+            }
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    List<String> values = parseCsvLine(line);
+                    rows.add(new ParkRow(lineNumber,
+                        valueAt(values, nameIndex),
+                        parseInteger(valueAt(values, capacityIndex), "capacity"),
+                        occupiedIndex >= 0 ? parseInteger(valueAt(values, occupiedIndex), "occupiedSpace") : null,
+                        latitudeIndex >= 0 ? parseDouble(valueAt(values, latitudeIndex), "latitude") : null,
+                        longitudeIndex >= 0 ? parseDouble(valueAt(values, longitudeIndex), "longitude") : null));
+                } catch (IllegalArgumentException ex) {
+                    errors.add(error(lineNumber, ex.getMessage()));
+                }
+            }
+        }
+        return importRows(rows, errors);
+    }
+
+    /**
+     * NDJSON : un objet park par ligne, ex. {"parkName":"...","capacity":100,"occupiedSpace":0}
+     */
+    @Transactional
+    public Map<String, Object> importNdjson(InputStream input) throws IOException {
+        List<ParkRow> rows = new ArrayList<>();
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Park park = objectMapper.readValue(line, Park.class);
+                    rows.add(new ParkRow(lineNumber, park.getParkName(), park.getCapacity(), park.getOccupiedSpace(),
+                        park.getLatitude(), park.getLongitude()));
+                } catch (JsonProcessingException ex) {
+                    errors.add(error(lineNumber, "Invalid JSON: " + ex.getOriginalMessage()));
+                }
+            }
+        }
+        return importRows(rows, errors);
+    }
+
+    private Map<String, Object> importRows(List<ParkRow> rows, List<Map<String, Object>> errors) {
+        // mêmes règles que ParkService.validatePark, sans requête par ligne
+        List<ParkRow> validRows = new ArrayList<>();
+        Set<String> namesInFile = new HashSet<>();
+        for (ParkRow row : rows) {
+            String message = validate(row);
+            if (message == null && !namesInFile.add(row.parkName())) {
+                message = "Park name is duplicated in the file";
+            }
+            if (message != null) {
+                errors.add(error(row.line(), message));
+            } else {
+                validRows.add(row);
+            }
+        }
+
+        // noms déjà en base : une requête IN par paquet de BATCH_SIZE noms au lieu d'une requête par park
+        Set<String> existingNames = new HashSet<>();
+        List<String> names = new ArrayList<>(namesInFile);
+        for (int from = 0; from < names.size(); from += BATCH_SIZE) {
+            existingNames.addAll(parkRepository.findExistingParkNames(names.subList(from, Math.min(from + BATCH_SIZE, names.size()))));
+        }
+
+        List<ParkRow> toInsert = new ArrayList<>();
+        for (ParkRow row : validRows) {
+            if (existingNames.contains(row.parkName())) {
+                errors.add(error(row.line(), "Park with the same name already exists"));
+            } else {
+                toInsert.add(row);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO park (park_name, capacity, base_capacity, occupied_space, latitude, longitude, version, created_date, last_modified_date) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?)",
+            toInsert, BATCH_SIZE,
+            (ps, row) -> {
+                ps.setString(1, row.parkName());
+                ps.setInt(2, row.capacity());
+                ps.setInt(3, row.capacity());
+                ps.setInt(4, row.occupiedSpace() != null ? row.occupiedSpace() : 0);
+                setNullableDouble(ps, 5, row.latitude());
+                setNullableDouble(ps, 6, row.longitude());
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+            });
+
+        // les écouteurs (index géographique, suivi des écritures...) apprennent l'existence des nouveaux parks
+        List<String> insertedNames = toInsert.stream().map(ParkRow::parkName).toList();
+        for (int from = 0; from < insertedNames.size(); from += BATCH_SIZE) {
+            for (Integer parkId : parkRepository.findParkIdsByParkNames(insertedNames.subList(from, Math.min(from + BATCH_SIZE, insertedNames.size())))) {
+                eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.CREATED));
+            }
+        }
+
+        errors.sort((a, b) -> Integer.compare((Integer) a.get("line"), (Integer) b.get("line")));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("imported", toInsert.size());
+        report.put("rejected", errors.size());
+        report.put("errors", errors);
+        return report;
+    }
+
+    /**
+     * Planification de capacité en CSV avec en-tête : parkId,newCapacity,startDate[,endDate] (dates au format YYYY-MM-DD)
+     */
+    @Transactional
+    public Map<String, Object> importScheduleCsv(InputStream input) throws IOException {
+        List<ScheduleRow> rows = new ArrayList<>();
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            List<String> columns = parseCsvLine(header).stream().map(String::trim).toList();
+            int parkIdIndex = columns.indexOf("parkId");
+            int capacityIndex = columns.indexOf("newCapacity");
+            int startIndex = columns.indexOf("startDate");
+            int endIndex = columns.indexOf("endDate");
+            if (parkIdIndex < 0 || capacityIndex < 0 || startIndex < 0) {
+                throw new IllegalArgumentException("CSV header must contain parkId, newCapacity and startDate");
+            }
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    List<String> values = parseCsvLine(line);
+                    rows.add(new ScheduleRow(lineNumber,
+                        parseInteger(valueAt(values, parkIdIndex), "parkId"),
+                        parseInteger(valueAt(values, capacityIndex), "newCapacity"),
+                        parseDate(valueAt(values, startIndex), "startDate"),
+                        endIndex >= 0 ? parseDate(valueAt(values, endIndex), "endDate") : null));
+                } catch (IllegalArgumentException ex) {
+                    errors.add(error(lineNumber, ex.getMessage()));
+                }
+            }
+        }
+        return importScheduleRows(rows, errors);
+    }
+
+    /**
+     * Planification de capacité en NDJSON, ex. {"parkId":1,"newCapacity":500,"startDate":"2024-07-01","endDate":"2024-08-31"}
+     */
+    @Transactional
+    public Map<String, Object> importScheduleNdjson(InputStream input) throws IOException {
+        List<ScheduleRow> rows = new ArrayList<>();
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    rows.add(new ScheduleRow(lineNumber,
+                        parseInteger(node.path("parkId").asText(null), "parkId"),
+                        parseInteger(node.path("newCapacity").asText(null), "newCapacity"),
+                        parseDate(node.path("startDate").asText(null), "startDate"),
+                        parseDate(node.path("endDate").asText(null), "endDate")));
+                } catch (JsonProcessingException ex) {
+                    errors.add(error(lineNumber, "Invalid JSON: " + ex.getOriginalMessage()));
+                } catch (IllegalArgumentException ex) {
+                    errors.add(error(lineNumber, ex.getMessage()));
+                }
+            }
+        }
+        return importScheduleRows(rows, errors);
+    }
+
+    private Map<String, Object> importScheduleRows(List<ScheduleRow> rows, List<Map<String, Object>> errors) {
+        List<ScheduleRow> validRows = new ArrayList<>();
+        for (ScheduleRow row : rows) {
+            String message = validate(row);
+            if (message != null) {
+                errors.add(error(row.line(), message));
+            } else {
+                validRows.add(row);
+            }
+        }
+
+        // regroupement par park dans l'ordre du fichier : pour un même park, une ligne plus bas l'emporte sur une ligne plus haut
+        Map<Integer, List<ScheduleRow>> rowsByPark = validRows.stream()
+            .collect(Collectors.groupingBy(ScheduleRow::parkId, LinkedHashMap::new, Collectors.toList()));
+
+        // parks et planifications existantes : une requête par paquet de BATCH_SIZE parks
+        Map<Integer, Park> parks = new HashMap<>();
+        Map<Integer, List<ParkCapacityChange>> existingChanges = new HashMap<>();
+        List<Integer> parkIds = new ArrayList<>(rowsByPark.keySet());
+        for (int from = 0; from < parkIds.size(); from += BATCH_SIZE) {
+            List<Integer> chunk = parkIds.subList(from, Math.min(from + BATCH_SIZE, parkIds.size()));
+            parkRepository.findAllById(chunk).forEach(park -> parks.put(park.getParkId(), park));
+            for (ParkCapacityChange change : parkCapacityChangeRepository.findByParkIds(chunk)) {
+                existingChanges.computeIfAbsent(change.getPark().getParkId(), id -> new ArrayList<>()).add(change);
+            }
+        }
+        // les écritures passent par JDBC : on détache les entités pour que Hibernate ne les réécrive pas au commit
+        entityManager.clear();
+
+        List<ParkCapacityChange> toInsert = new ArrayList<>();
+        List<ParkCapacityChange> toUpdate = new ArrayList<>();
+        List<ParkCapacityChange> toDelete = new ArrayList<>();
+        List<Park> touchedParks = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        int applied = 0;
+
+        for (Map.Entry<Integer, List<ScheduleRow>> entry : rowsByPark.entrySet()) {
+            Park park = parks.get(entry.getKey());
+            if (park == null) {
+                entry.getValue().forEach(row -> errors.add(error(row.line(), "Park not found with id: " + row.parkId())));
+                continue;
+            }
+
+            // fusion en mémoire de toute la planification du park, puis seules les lignes modifiées sont écrites
+            List<ParkCapacityChange> existing = existingChanges.getOrDefault(park.getParkId(), List.of());
+            CapacityTimelineMerger merger = new CapacityTimelineMerger(existing);
+            for (ScheduleRow row : entry.getValue()) {
+                ParkCapacityChange change = new ParkCapacityChange();
+                change.setPark(park);
+                change.setNewCapacity(row.newCapacity());
+                change.setStartDate(row.startDate());
+                change.setEndDate(row.endDate());
+                merger.merge(change);
+                applied++;
+            }
+            parkMetrics.recordTimelineSize(existing.size());
+            parkMetrics.recordSplits(merger.getSplits());
+            toInsert.addAll(merger.getInserted());
+            toUpdate.addAll(merger.getUpdated());
+            toDelete.addAll(merger.getDeleted());
+
+            // capacité actuelle recalculée une seule fois par park
+            CapacityTimeline timeline = merger.toTimeline();
+            park.setCapacity(timeline.capacityAt(today, park.getDefaultCapacity()));
+            touchedParks.add(park);
+        }
+
+        writeSchedule(toInsert, toUpdate, toDelete, touchedParks);
+
+        errors.sort((a, b) -> Integer.compare((Integer) a.get("line"), (Integer) b.get("line")));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("applied", applied);
+        report.put("parks", touchedParks.size());
+        report.put("inserted", toInsert.size());
+        report.put("updated", toUpdate.size());
+        report.put("deleted", toDelete.size());
+        report.put("rejected", errors.size());
+        report.put("errors", errors);
+        return report;
+    }
+
+    private void writeSchedule(List<ParkCapacityChange> toInsert, List<ParkCapacityChange> toUpdate,
+                               List<ParkCapacityChange> toDelete, List<Park> touchedParks) {
+        jdbcTemplate.batchUpdate("DELETE FROM park_capacity_change WHERE id = ?", toDelete, BATCH_SIZE,
+            (ps, change) -> ps.setInt(1, change.getId()));
+
+        jdbcTemplate.batchUpdate("UPDATE park_capacity_change SET new_capacity = ?, start_date = ?, end_date = ? WHERE id = ?", toUpdate, BATCH_SIZE,
+            (ps, change) -> {
+                ps.setInt(1, change.getNewCapacity());
+                ps.setDate(2, Date.valueOf(change.getStartDate()));
+                setNullableDate(ps, 3, change.getEndDate());
+                ps.setInt(4, change.getId());
+            });
+
+        jdbcTemplate.batchUpdate("INSERT INTO park_capacity_change (park_id, new_capacity, start_date, end_date) VALUES (?, ?, ?, ?)", toInsert, BATCH_SIZE,
+            (ps, change) -> {
+                ps.setInt(1, change.getPark().getParkId());
+                ps.setInt(2, change.getNewCapacity());
+                ps.setDate(3, Date.valueOf(change.getStartDate()));
+                setNullableDate(ps, 4, change.getEndDate());
+            });
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("UPDATE park SET capacity = ?, version = version + 1, last_modified_date = ? WHERE park_id = ?", touchedParks, BATCH_SIZE,
+            (ps, park) -> {
+                ps.setInt(1, park.getCapacity());
+                ps.setTimestamp(2, now);
+                ps.setInt(3, park.getParkId());
+            });
+
+        for (Park park : touchedParks) {
+            occupancyService.release(park.getParkId()); // la capacité a pu changer : compteur rechargé au prochain événement
+            parkCache.invalidate(park.getParkId());
+            eventPublisher.publishEvent(new ParkChangedEvent(park.getParkId(), ParkChangedEvent.Type.CAPACITY));
+        }
+    }
+
+    private static void setNullableDate(PreparedStatement ps, int index, LocalDate date) throws SQLException {
+        if (date != null) {
+            ps.setDate(index, Date.valueOf(date));
+        } else {
+            ps.setNull(index, Types.DATE);
+        }
+    }
+
+    private static String validate(ScheduleRow row) {
+        if (row.parkId() == null) {
+            return "parkId is mandatory";
+        }
+        if (row.newCapacity() == null) {
+            return "newCapacity is mandatory";
+        }
+        if (row.newCapacity() < 1) {
+            return "Capacity must be at least 1";
+        }
+        if (row.startDate() == null) {
+            return "startDate is mandatory";
+        }
+        if (row.endDate() != null && row.startDate().isAfter(row.endDate())) {
+            return "Start date must be before end date";
+        }
+        return null;
+    }
+
+    private static void setNullableDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static String validate(ParkRow row) {
+        if (row.parkName() == null || row.parkName().isBlank()) {
+            return "Park name is mandatory";
+        }
+        if (row.capacity() == null) {
+            return "Capacity is mandatory";
+        }
+        if (row.capacity() <= 0) {
+            return "Capacity must be greater than zero";
+        }
+        int occupiedSpace = row.occupiedSpace() != null ? row.occupiedSpace() : 0;
+        if (occupiedSpace < 0) {
+            return "Occupied space cannot be negative";
+        }
+        if (occupiedSpace > row.capacity()) {
+            return "Occupied space cannot exceed capacity";
+        }
+        if ((row.latitude() == null) != (row.longitude() == null)) {
+            return "latitude and longitude must be given together";
+        }
+        if (row.latitude() != null && (row.latitude() < -90 || row.latitude() > 90)) {
+            return "Latitude must be between -90 and 90";
+        }
+        if (row.longitude() != null && (row.longitude() < -180 || row.longitude() > 180)) {
+            return "Longitude must be between -180 and 180";
+        }
+        return null;
+    }
+
+    private static Map<String, Object> error(int line, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("line", line);
+        error.put("message", message);
+        return error;
+    }
+
+    private static String valueAt(List<String> values, int index) {
+        return index < values.size() ? values.get(index).trim() : null;
+    }
+
+    private static Integer parseInteger(String value, String field) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(field + " must be a number");
+        }
+    }
+
+    private static Double parseDouble(String value, String field) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(field + " must be a number");
+        }
+    }
+
+    private static LocalDate parseDate(String value, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException(field + ": Invalid date format. Please use the format YYYY-MM-DD");
+        }
+    }
+
+    // découpe une ligne CSV en gérant les valeurs entre guillemets ("a, b" et "" pour un guillemet)
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,52 @@
+package com.stack.park.services;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mesures métier des calculs de capacité, à croiser avec les temps de park.service et http.server.requests.
+ *
+ * Ce sont des distributions (count, total, max, histogramme) plutôt que des jauges : une jauge ne garderait
+ * que la dernière valeur, alors qu'on veut savoir quelle part des appels touche de grosses planifications.
+ * Pas de tag parkId : un tag par park ferait exploser le nombre de séries.
+ */
+@Component
+public class ParkMetrics {
+
+    private final DistributionSummary timelineSize;
+    private final DistributionSummary rangeDays;
+    private final Counter splits;
+
+    public ParkMetrics(MeterRegistry meterRegistry) {
+        this.timelineSize = DistributionSummary.builder("park.capacity.timeline.size")
+            .description("Changements de capacité existants chargés pour une fusion (addCapacityChange, import de planification)")
+            .baseUnit("changes")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rangeDays = DistributionSummary.builder("park.capacity.range.days")
+            .description("Nombre de jours couverts par une demande de capacités sur une plage de dates")
+            .baseUnit("days")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.splits = Counter.builder("park.capacity.splits")
+            .description("Changements existants raccourcis ou coupés en deux par un nouveau changement")
+            .register(meterRegistry);
+    }
+
+    public void recordTimelineSize(int changes) {
+        timelineSize.record(changes);
+    }
+
+    public void recordRangeDays(long days) {
+        rangeDays.record(days);
+    }
+
+    public void recordSplits(int count) {
+        if (count > 0) {
+            splits.increment(count);
+        }
+    }
+}
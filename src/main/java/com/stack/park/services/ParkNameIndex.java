@@ -0,0 +1,158 @@
+package com.stack.park.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.stack.park.dto.ParkCapacityProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.ParkRepository;
+
+/**
+ * Index en mémoire des noms de parks, pour l'autocomplétion par préfixe sans LIKE sur la table.
+ *
+ * Les noms sont triés sans casse ni accents ("Étoile" et "etoile" se suivent) : les parks d'un préfixe sont une plage
+ * contiguë de la ConcurrentSkipListMap, lue en O(log n + limit). Tenu à jour comme ParkGeoIndex : un ParkChangedEvent
+ * marque le park, et les parks marqués (créés, renommés, supprimés, capacité modifiée) sont relus en une requête toutes
+ * les park.name-index.refresh-interval-ms.
+ */
+@Service
+public class ParkNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkNameIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    public static final int MAX_RESULTS = 50;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    // clé : nom normalisé + \0 + parkId, pour garder les homonymes et un ordre stable
+    private final ConcurrentSkipListMap<String, ParkName> names = new ConcurrentSkipListMap<>();
+    private final Map<Integer, String> keysByParkId = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyParks = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    public record ParkName(Integer parkId, String parkName, int capacity) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int afterId = 0;
+        List<ParkCapacityProjection> page;
+        do {
+            page = parkRepository.findNamePage(afterId, Limit.of(LOAD_BATCH_SIZE));
+            page.forEach(this::index);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getParkId();
+            }
+        } while (page.size() == LOAD_BATCH_SIZE);
+        loaded = true;
+        logger.info("Name index loaded with {} parks", keysByParkId.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParkChanged(ParkChangedEvent event) {
+        if (event.type() != ParkChangedEvent.Type.OCCUPANCY) {
+            dirtyParks.add(event.parkId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${park.name-index.refresh-interval-ms:500}")
+    public void refresh() {
+        // avant la fin du chargement, les parks marqués attendent : le chargement pourrait écraser un état plus récent
+        if (!loaded || dirtyParks.isEmpty()) {
+            return;
+        }
+        List<Integer> parkIds = new ArrayList<>();
+        for (Integer parkId : dirtyParks) {
+            dirtyParks.remove(parkId);
+            parkIds.add(parkId);
+        }
+
+        for (int from = 0; from < parkIds.size(); from += LOAD_BATCH_SIZE) {
+            List<Integer> chunk = parkIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, parkIds.size()));
+            Set<Integer> found = new HashSet<>();
+            for (ParkCapacityProjection park : parkRepository.findNameByParkIds(chunk)) {
+                found.add(park.getParkId());
+                index(park);
+            }
+            // supprimés
+            chunk.stream().filter(parkId -> !found.contains(parkId)).forEach(this::remove);
+        }
+    }
+
+    private void index(ParkCapacityProjection park) {
+        String key = normalize(park.getParkName()) + '\0' + String.format("%010d", park.getParkId());
+        String previous = keysByParkId.put(park.getParkId(), key);
+        names.put(key, new ParkName(park.getParkId(), park.getParkName(), park.getCapacity()));
+        if (previous != null && !previous.equals(key)) {
+            names.remove(previous); // renommé
+        }
+    }
+
+    private void remove(Integer parkId) {
+        String key = keysByParkId.remove(parkId);
+        if (key != null) {
+            names.remove(key);
+        }
+    }
+
+    /**
+     * Les parks dont le nom commence par prefix (sans tenir compte de la casse ni des accents), par ordre alphabétique.
+     */
+    public List<Map<String, Object>> findByPrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("prefix is mandatory");
+        }
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RESULTS);
+        }
+
+        // un espace final compte ("parc " ne propose pas "Parcelle")
+        String from = normalize(prefix.stripLeading());
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (ParkName park : names.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("parkId", park.parkId());
+            result.put("parkName", park.parkName());
+            result.put("capacity", park.capacity());
+            results.add(result);
+            if (results.size() == limit) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    // "Parc de l'Étoile" -> "parc de l'etoile"
+    static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return keysByParkId.size();
+    }
+}
@@ -1,32 +1,94 @@
 package com.stack.park.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.stack.park.dto.ParkCapacityProjection;
+import com.stack.park.dto.ParkListVersionProjection;
+import com.stack.park.dto.ParkOccupancyProjection;
 import com.stack.park.dto.ParkProjection;
 import com.stack.park.entities.Park;
+import com.stack.park.events.ParkChangedEvent;
 import com.stack.park.entities.ParkCapacityChange;
 import com.stack.park.exceptions.NotFoundException;
+import com.stack.park.exceptions.OccupancyConflictException;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
 import com.stack.park.repositories.ParkRepository;
+import com.stack.park.timeline.CapacityTimeline;
+import com.stack.park.timeline.CapacityTimelineMerger;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
+@Timed(value = "park.service", histogram = true) // temps de chaque méthode publique, tags class et method
 public class ParkService {
 
     @Autowired
     private ParkRepository parkRepository;
 
+    @Autowired
+    private ParkCapacityChangeRepository parkCapacityChangeRepository;
+
+    @Autowired
+    private ParkCache parkCache;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ParkMetrics parkMetrics;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // borne haute pour une période sans fin dans les requêtes (LocalDate.MAX n'est pas représentable en base)
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+
 
-    private void validatePark(Park park) { // validation centralisé
+    private void validatePark(Park park) {
+        validatePark(park, null);
+    }
+
+    // parkId = le park mis à jour (il peut garder son propre nom), null pour une création
+    private void validatePark(Park park, Integer parkId) { // validation centralisé
         if (park.getOccupiedSpace() > park.getCapacity()) {
             throw new IllegalArgumentException("Occupied space cannot exceed capacity");
         }
@@ -40,7 +102,7 @@ public class ParkService {
         }
 
         Optional<Park> existingPark = parkRepository.findByParkName(park.getParkName());
-        if (existingPark.isPresent()) {
+        if (existingPark.isPresent() && !existingPark.get().getParkId().equals(parkId)) {
             throw new IllegalArgumentException("Park with the same name already exists");
         }
     }
@@ -48,206 +110,333 @@ public class ParkService {
     // create User Method
     public Park create(Park park) {
         validatePark(park);
-        return parkRepository.save(park);
+        // un nouveau park : l'id est généré et la version démarre à 0, quelles que soient les valeurs envoyées
+        park.setParkId(null);
+        park.setVersion(null);
+        park.setBaseCapacity(park.getCapacity());
+        Park createdPark = parkRepository.save(park);
+        parkCache.invalidate(createdPark.getParkId());
+        eventPublisher.publishEvent(new ParkChangedEvent(createdPark.getParkId(), ParkChangedEvent.Type.CREATED));
+        return createdPark;
     }
 
     // get all
+    @Transactional(readOnly = true)
     public List<Park> findAll() {
         return parkRepository.findAll();
     }
 
+    // export de tous les parks en NDJSON (un objet JSON par ligne)
+    // la mémoire reste constante : chaque park est écrit puis détaché du contexte de persistance
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Park.class);
+
+        try (Stream<Park> parks = parkRepository.streamAllOrderByParkId()) {
+            Iterator<Park> iterator = parks.iterator();
+            while (iterator.hasNext()) {
+                Park park = iterator.next();
+                outputStream.write(writer.writeValueAsBytes(park));
+                outputStream.write('\n');
+                entityManager.detach(park);
+            }
+        }
+        outputStream.flush();
+    }
+
+    // résumé de la table pour les GET conditionnels sur la liste
+    @Transactional(readOnly = true)
+    public ParkListVersionProjection getListVersion() {
+        return parkRepository.findListVersion();
+    }
+
+    // get all par page (keyset sur parkId)
+    @Transactional(readOnly = true)
+    public Map<String, Object> findPage(Integer afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Park> parks = parkRepository.findByParkIdGreaterThanOrderByParkIdAsc(afterId != null ? afterId : 0, Limit.of(size));
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", parks);
+        // null quand il n'y a plus rien à lire, sinon à renvoyer comme afterId pour la page suivante
+        page.put("nextAfterId", parks.size() < size ? null : parks.get(parks.size() - 1).getParkId());
+        return page;
+    }
+
     // get by parkId
+    @Transactional(readOnly = true)
     public Optional<Park> findById(Integer parkId) {
-        if(!parkRepository.existsById(parkId)) {
-            throw new NotFoundException("Park not found with parkId: " +parkId);
-        }
-       return parkRepository.findById(parkId);
+        return Optional.of(getCachedPark(parkId, "Park not found with parkId: "));
     }
 
     // update park by parkId
+    // les champs sont recopiés sur l'entité chargée : les changements de capacité et la date de création sont conservés,
+    // et la version envoyée par le client (si présente) doit être celle en base.
+    // la capacité envoyée ne devient la capacité par défaut que si aucun changement ne couvre aujourd'hui
+    @Transactional
     public Park updateById(Park park, Integer parkId) {
-        if (!parkRepository.existsById(parkId)) {
-            throw new NotFoundException("Park not found with parkId: " +parkId);
+        occupancyService.release(parkId); // la mise à jour complète fait foi sur les compteurs d'entrées/sorties
+        Park existingPark = parkRepository.findById(parkId)
+                .orElseThrow(() -> new NotFoundException("Park not found with parkId: " + parkId));
+        validatePark(park, parkId);
+
+        if (park.getVersion() != null && !park.getVersion().equals(existingPark.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Park.class, parkId);
         }
-        validatePark(park);
-        park.setParkId(parkId);
-        return parkRepository.save(park);
+        existingPark.setParkName(park.getParkName());
+        // un changement planifié couvre aujourd'hui : la capacité lue par le client est celle du changement, pas la capacité
+        // par défaut, qui reste celle en base (sinon un simple renommage la remplacerait par la valeur planifiée)
+        LocalDate today = LocalDate.now();
+        Optional<Integer> scheduledCapacity = parkCapacityChangeRepository.findByParkIdsBetweenDates(List.of(parkId), today, today).stream()
+            .findFirst()
+            .map(ParkCapacityChange::getNewCapacity);
+        if (scheduledCapacity.isPresent()) {
+            if (park.getOccupiedSpace() > scheduledCapacity.get()) {
+                throw new IllegalArgumentException("Occupied space cannot exceed capacity");
+            }
+            existingPark.setCapacity(scheduledCapacity.get());
+        } else {
+            existingPark.setCapacity(park.getCapacity());
+            existingPark.setBaseCapacity(park.getCapacity());
+        }
+        existingPark.setOccupiedSpace(park.getOccupiedSpace());
+        existingPark.setLatitude(park.getLatitude());
+        existingPark.setLongitude(park.getLongitude());
+
+        Park updatedPark = parkRepository.save(existingPark);
+        parkCache.invalidate(parkId);
+        eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.UPDATED));
+        return updatedPark;
+    }
+
+    // +delta/-delta sur l'occupation en une seule requête conditionnelle, sans lecture ni verrou
+    @Transactional
+    public Map<String, Object> adjustOccupancy(Integer parkId, int delta) {
+        if (delta == 0) {
+            throw new IllegalArgumentException("delta cannot be zero");
+        }
+        occupancyService.release(parkId); // les deltas en mémoire d'abord, sinon la vérification en base serait faussée
+
+        if (parkRepository.adjustOccupiedSpace(parkId, delta, LocalDateTime.now()) == 0) {
+            if (!parkRepository.existsById(parkId)) {
+                throw new NotFoundException("Park not found with id: " + parkId);
+            }
+            throw new OccupancyConflictException(delta > 0 ? "Park is full" : "Park is already empty");
+        }
+        parkCache.invalidate(parkId);
+        eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.OCCUPANCY));
+
+        ParkOccupancyProjection occupancy = parkRepository.findOccupancyByParkId(parkId)
+                .orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("parkId", parkId);
+        result.put("occupiedSpace", occupancy.getOccupiedSpace());
+        result.put("capacity", occupancy.getCapacity());
+        return result;
     }
 
     // delete by parkId
+    // les changements de capacité sont supprimés en une requête, au lieu d'un DELETE par ligne via la cascade
+    @Transactional
     public void deleteById(Integer parkId) {
-        if (!parkRepository.existsById(parkId)) {
-            throw new NotFoundException("Park not found with parkId: " + parkId);
-        }
-        parkRepository.deleteById(parkId);
+        Park park = parkRepository.findById(parkId)
+                .orElseThrow(() -> new NotFoundException("Park not found with parkId: " + parkId));
+        occupancyService.release(parkId);
+        parkCapacityChangeRepository.deleteByParkId(parkId);
+        park.getCapacityChanges().clear();
+        parkRepository.delete(park);
+        parkCache.invalidate(parkId);
+        eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.DELETED));
     }
 
     // get park with capacity Greater than 10000
+    @Transactional(readOnly = true)
     public List<Park> getCapacityGreaterThan10000() {
         return parkRepository.findByCapacityGreaterThan(10000);
     }
 
     // get park with capacity less than 10000
+    @Transactional(readOnly = true)
     public List<Park> getParksWithLowCapacity() {
         return parkRepository.findByCapacityLessThan();
     }
 
     // get park with capacity enter 10000 and 40000
+    @Transactional(readOnly = true)
     public List <ParkProjection> getParksWithMediumCapacity() {
         return parkRepository.findParksWithMediumCapacity();
     }
 
+    // get park par bande de capacité [min, max], triés par capacité puis parkId, page par page (keyset)
+    @Transactional(readOnly = true)
+    public Map<String, Object> findByCapacityRange(Integer min, Integer max, String sort, Integer afterCapacity, Integer afterId, int size) {
+        if (min > max) {
+            throw new IllegalArgumentException("min cannot be greater than max");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean descending = "desc".equalsIgnoreCase(sort);
+        if (!descending && !"asc".equalsIgnoreCase(sort)) {
+            throw new IllegalArgumentException("sort must be asc or desc");
+        }
+
+        // première page : le curseur part de la borne de la bande, parkId > MIN_VALUE inclut tous les parks de cette capacité
+        Integer cursorCapacity = afterCapacity != null ? afterCapacity : (descending ? max : min);
+        Integer cursorId = afterCapacity != null && afterId != null ? afterId : Integer.MIN_VALUE;
+
+        List<ParkCapacityProjection> parks = descending
+            ? parkRepository.findByCapacityRangeDesc(min, max, cursorCapacity, cursorId, Limit.of(size))
+            : parkRepository.findByCapacityRangeAsc(min, max, cursorCapacity, cursorId, Limit.of(size));
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", parks);
+        if (parks.size() < size) {
+            page.put("nextAfterCapacity", null);
+            page.put("nextAfterId", null);
+        } else {
+            ParkCapacityProjection last = parks.get(parks.size() - 1);
+            page.put("nextAfterCapacity", last.getCapacity());
+            page.put("nextAfterId", last.getParkId());
+        }
+        return page;
+    }
+
     @Transactional // rollback (complètement annulée en cas d'erreur)
     public Park addCapacityChange(Integer parkId, ParkCapacityChange newChange) {
+        occupancyService.release(parkId); // la capacité va changer : le compteur d'occupation sera rechargé
         Park park = parkRepository.findById(parkId)
                 .orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
 
-        // obtenir la list des changements de capacité existants pour ce park(parkId)
-        List<ParkCapacityChange> changes = park.getCapacityChanges();
-
-        for (ParkCapacityChange existingChange : changes) {
-            LocalDate existingStart = existingChange.getStartDate();
-            LocalDate existingEnd = existingChange.getEndDate() != null ? existingChange.getEndDate() : LocalDate.MAX;
-
-            if (!newChange.getEndDate().isBefore(existingStart) && !newChange.getStartDate().isAfter(existingEnd)) {
-                // intervalles qui se chevauchent trouvées
-
-                // Si la date de début du nouveau changement est après la date de début de l'existant
-                if(newChange.getStartDate().isAfter(existingStart)) {
-                    // créer un newChange avant la nouvelle interval
-
-                    ParkCapacityChange beforeChange = new ParkCapacityChange();
-                    
-                    beforeChange.setPark(park);
-                    beforeChange.setNewCapacity(existingChange.getNewCapacity());
-                    beforeChange.setStartDate(existingStart);
-                    beforeChange.setEndDate(newChange.getStartDate().minusDays(1)); //.minusDays(1) = la date sera moins de un jour
-
-                    park.getCapacityChanges().add(beforeChange); // ajouté beforeChange à la liste des changements de capacité du park
-                }
-
-                if(newChange.getEndDate().isBefore(existingEnd)) {
-                    // créer un newChange après la nouvelle interval
+        // seuls les changements qui chevauchent la nouvelle période sont chargés, pas toute la planification du park
+        LocalDate end = newChange.getEndDate() != null ? newChange.getEndDate() : LAST_DATE;
+        List<ParkCapacityChange> overlapping = parkCapacityChangeRepository.findByParkIdsBetweenDates(List.of(parkId), newChange.getStartDate(), end);
 
-                    ParkCapacityChange afterChange = new ParkCapacityChange();
-                    afterChange.setPark(park);
-                    afterChange.setNewCapacity(existingChange.getNewCapacity());
-                    afterChange.setStartDate(newChange.getEndDate().plusDays(1));
-                    afterChange.setEndDate(existingEnd);
-                    park.getCapacityChanges().add(afterChange);
-                }
-
-                // supprime l'ancien changement qui se chevauche
-                park.getCapacityChanges().remove(existingChange);
-                break; // quité la boucle parcequ'on a modifié la liste
-            }
-        }
-        // Add the new change
+        // découpe de tous les chevauchements en une passe (raccourcis, coupés en deux ou supprimés)
+        CapacityTimelineMerger merger = new CapacityTimelineMerger(overlapping);
         newChange.setPark(park);
-        park.getCapacityChanges().add(newChange);
+        merger.merge(newChange);
+        parkMetrics.recordTimelineSize(overlapping.size());
+        parkMetrics.recordSplits(merger.getSplits());
 
-        // trié les modif par date de début pour plus de cohérence
-        park.getCapacityChanges().sort(Comparator.comparing(ParkCapacityChange::getStartDate));
-        Park updatedPark = parkRepository.save(park);
-        return updateCapacityWithCurrent(updatedPark);
-    }
+        // seules les lignes touchées sont écrites : insertions et suppressions ici, modifications par dirty checking au commit
+        parkCapacityChangeRepository.deleteAll(merger.getDeleted());
+        parkCapacityChangeRepository.saveAll(merger.getInserted());
 
-    public Integer getCurrentCapacity(Park park) {
-        // récupère la date actuel
+        // capacité du jour recalculée une fois, à partir du seul changement qui couvre aujourd'hui
         LocalDate today = LocalDate.now();
+        Integer currentCapacity = parkCapacityChangeRepository.findByParkIdsBetweenDates(List.of(parkId), today, today).stream()
+            .findFirst()
+            .map(ParkCapacityChange::getNewCapacity)
+            .orElse(park.getDefaultCapacity());
+        park.setCapacity(currentCapacity);
+        park.setLastModifiedDate(LocalDateTime.now()); // la planification du park a changé, même si la capacité du jour est la même
 
-        // if(capacityChanges == null) {
-        //     return capacity;
-        // }
+        parkCache.invalidate(parkId);
+        eventPublisher.publishEvent(new ParkChangedEvent(parkId, ParkChangedEvent.Type.CAPACITY));
+        return park;
+    }
 
-        Optional<ParkCapacityChange> currentChange = park.getCapacityChanges().stream()
-            .filter(change -> (change.getStartDate().isBefore(today) || change.getStartDate().isEqual(today)) && (change.getEndDate() == null || change.getEndDate().isAfter(today) || change.getEndDate().isEqual(today)))
-            // Vérifie que la date de début du changement de capacité (startDate) est antérieure ou égale à la date actuelle (today)
-            .findFirst(); // recherche et renvoi le premier changement de capacité correspondant aux critères. si il y a pas de changement l'Optional sera vide
+    // Get capacity at Date
+    @Transactional(readOnly = true)
+    public Integer getCapacityAtDate(Integer parkId, LocalDate date) {
+        Park park = getCachedPark(parkId, "Park not found with id: ");
 
-            return currentChange.map(ParkCapacityChange::getNewCapacity).orElse(park.getCapacity());
+        return getCachedTimeline(parkId).capacityAt(date, park.getDefaultCapacity());
     }
 
-    public Park updateCapacityWithCurrent(Park park) {
-        Integer currentCapacity = getCurrentCapacity(park);
-        park.setCapacity(currentCapacity);
-        return parkRepository.save(park);
+    // park en lecture seule depuis le cache, chargé en base seulement en cas de miss
+    // (sur le primaire si le park vient d'être modifié : le cache ne garde jamais un état en retard du réplica)
+    private Park getCachedPark(Integer parkId, String notFoundMessage) {
+        Park park = parkCache.getPark(parkId, id -> readYourWritesTracker.read(id, () -> parkRepository.findById(id).orElse(null)));
+        if (park == null) {
+            throw new NotFoundException(notFoundMessage + parkId);
+        }
+        return park;
     }
 
-    // Get capacity at Date
-    public Integer getCapacityAtDate(Integer parkId, LocalDate date) {
-        Park park = parkRepository.findById(parkId).orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
+    // index de capacité en lecture seule depuis le cache (ne jamais le modifier)
+    private CapacityTimeline getCachedTimeline(Integer parkId) {
+        return parkCache.getTimeline(parkId, id -> readYourWritesTracker.read(id, () -> CapacityTimeline.of(parkCapacityChangeRepository.findByParkId(id))));
+    }
+
+    // Get capacity at Date pour plusieurs parks et plusieurs dates
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getCapacitiesAtDates(Collection<Integer> parkIds, Collection<LocalDate> dates) {
+        TreeSet<Integer> sortedIds = new TreeSet<>(parkIds);
+        TreeSet<LocalDate> sortedDates = new TreeSet<>(dates);
+
+        // 2 requêtes au total quel que soit le nombre de parks : les parks, puis tous leurs changements sur la plage de dates
+        Map<Integer, Park> parks = parkRepository.findAllById(sortedIds).stream()
+            .collect(Collectors.toMap(Park::getParkId, Function.identity()));
+        Map<Integer, List<ParkCapacityChange>> changesByPark = parks.isEmpty() ? Map.of() : parkCapacityChangeRepository
+            .findByParkIdsBetweenDates(parks.keySet(), sortedDates.first(), sortedDates.last()).stream()
+            .collect(Collectors.groupingBy(change -> change.getPark().getParkId()));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Integer parkId : sortedIds) {
+            Park park = parks.get(parkId);
+            if (park == null) {
+                // un park inconnu est signalé sur sa ligne sans faire échouer tout le lot
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("parkId", parkId);
+                error.put("message", "Park not found with id: " + parkId);
+                results.add(error);
+                continue;
+            }
 
-        Optional<ParkCapacityChange> capacityChangeAtDate = park.getCapacityChanges().stream() //.stream() = utilisé pour transformer les listes en un flux de données, ce qu'on permet d'effectuer des opérations de filtrage
-            .filter(change -> 
-                (change.getStartDate().isBefore(date) || change.getStartDate().isEqual(date)) && (change.getEndDate() == null || change.getEndDate().isAfter(date) || change.getEndDate().isEqual(date))
-            )
-            .findFirst();
+            CapacityTimeline timeline = CapacityTimeline.of(changesByPark.getOrDefault(parkId, List.of()));
+            for (LocalDate date : sortedDates) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("parkId", parkId);
+                entry.put("date", date);
+                entry.put("capacity", timeline.capacityAt(date, park.getDefaultCapacity()));
+                results.add(entry);
+            }
+        }
 
-        return capacityChangeAtDate.map(ParkCapacityChange::getNewCapacity).orElse(park.getCapacity());
+        return results;
     }
 
     // Get Capacity at interval Date
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getCapacityAtBetweenDates(Integer parkId, LocalDate startDate, LocalDate endDate) {
-        Park park = parkRepository.findById(parkId).orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
+        parkMetrics.recordRangeDays(ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        // un seul chargement du park, puis on déroule les intervalles jour par jour en mémoire
+        Park park = getCachedPark(parkId, "Park not found with id: ");
 
         List<Map<String, Object>> capacities = new ArrayList<>();
-        LocalDate currentDate = startDate;
-
-        while(!currentDate.isAfter(endDate)) {
-            Integer capacity = getCapacityAtDate(parkId, currentDate);
-            Map<String, Object> capacityEntry = new HashMap<>();
-            capacityEntry.put("date", currentDate);
-            capacityEntry.put("capacity", capacity);
-            capacities.add(capacityEntry);
-            currentDate = currentDate.plusDays(1);
+        for (CapacityTimeline.Interval interval : getCachedTimeline(parkId).intervalsBetween(startDate, endDate, park.getDefaultCapacity())) {
+            for (LocalDate date = interval.startDate(); !date.isAfter(interval.endDate()); date = date.plusDays(1)) {
+                Map<String, Object> capacityEntry = new HashMap<>();
+                capacityEntry.put("date", date);
+                capacityEntry.put("capacity", interval.capacity());
+                capacities.add(capacityEntry);
+            }
         }
 
         return capacities;
     }
 
     // Get Capacity at interval Date
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getCapacitiesGroupedByInterval(Integer parkId, LocalDate startDate, LocalDate endDate) {
-        Park park = parkRepository.findById(parkId).orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
+        parkMetrics.recordRangeDays(ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        // un seul chargement du park et de ses changements, puis balayage des bornes (voir CapacityTimeline.intervalsBetween)
+        Park park = getCachedPark(parkId, "Park not found with id: ");
 
         List<Map<String, Object>> capacities = new ArrayList<>();
-        LocalDate currentDate = startDate;
-        Integer currentCapacity = null;
-        LocalDate intervalStartDate = startDate;
-
-        // tant que la date actuel ne dépasse pas le le endDate
-        while(!currentDate.isAfter(endDate)) {
-            Integer capacityAtDate = getCapacityAtDate(parkId, currentDate);
-
-            if (currentCapacity == null) {
-                currentCapacity = capacityAtDate;
-            }
-
-            // si la capacity de la date n'est pas égale à la capacity actuel ou la date actuel est égale endDate 
-            if (!capacityAtDate.equals(currentCapacity)) {
-                Map<String, Object> capacityEntry = new HashMap<>();
-                capacityEntry.put("capacity", currentCapacity);
-                capacityEntry.put("endDate", currentDate.equals(endDate) ? endDate : currentDate.minusDays(1));
-                capacityEntry.put("startDate", intervalStartDate);
-
-                capacities.add(capacityEntry);
-
-                intervalStartDate = currentDate;
-                currentCapacity = capacityAtDate;
-            }
-            currentDate = currentDate.plusDays(1);
+        for (CapacityTimeline.Interval interval : getCachedTimeline(parkId).intervalsBetween(startDate, endDate, park.getDefaultCapacity())) {
+            Map<String, Object> capacityEntry = new HashMap<>();
+            capacityEntry.put("capacity", interval.capacity());
+            capacityEntry.put("startDate", interval.startDate());
+            capacityEntry.put("endDate", interval.endDate());
 
+            capacities.add(capacityEntry);
         }
-                if(!currentDate.equals(intervalStartDate)) {
-                    Map<String, Object> capacityEntry = new HashMap<>();
-                    capacityEntry.put("capacity", currentCapacity);
-                    capacityEntry.put("startDate", intervalStartDate);
-                    capacityEntry.put("endDate", endDate);
-    
-                    capacities.add(capacityEntry);
-                }
 
         return capacities;
     }
 }
-
@@ -0,0 +1,255 @@
+package com.stack.park.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.stack.park.dto.ParkOccupancyProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.exceptions.NotFoundException;
+import com.stack.park.repositories.ParkRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Diffuse en Server-Sent Events la capacité et l'occupation des parks suivis.
+ *
+ * Un ParkChangedEvent ne fait que marquer le park comme modifié. Toutes les park.stream.dispatch-interval-ms,
+ * l'état des parks modifiés est relu en une seule requête et proposé à chacun de leurs abonnés : le coût en base
+ * ne dépend pas du nombre d'abonnés.
+ *
+ * Chaque abonné garde au plus un état en attente. Un nouvel état remplace celui qui n'a pas encore été envoyé,
+ * donc un client lent ne reçoit que le dernier état et rien ne s'accumule en mémoire. Chaque abonné a au plus
+ * un envoi en cours, sur son propre thread le temps de l'envoi : une socket bloquée ne retarde que son client.
+ * Un envoi bloqué plus de park.stream.send-timeout-ms fait abandonner l'abonné au heartbeat suivant
+ * (l'écriture elle-même est bornée par le timeout d'écriture du conteneur).
+ */
+@Service
+public class ParkUpdatePublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkUpdatePublisher.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final ExecutorService sender;
+
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyParks = ConcurrentHashMap.newKeySet();
+
+    public ParkUpdatePublisher(@Value("${park.stream.timeout-ms:1800000}") long timeoutMillis,
+                               @Value("${park.stream.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        // threads de plateforme et pas virtuels : SseEmitter.send est synchronized, une écriture bloquée y épinglerait
+        // le thread porteur en Java 21. Les threads inactifs sont rendus après 60 s.
+        this.sender = Executors.newCachedThreadPool(Thread.ofPlatform().name("park-stream-", 0).daemon(true).factory());
+    }
+
+    private class Subscriber {
+        final Integer parkId;
+        final SseEmitter emitter;
+        final AtomicReference<Object> pending = new AtomicReference<>(); // dernier état pas encore envoyé
+        final AtomicBoolean scheduled = new AtomicBoolean(); // un envoi est déjà en file ou en cours
+        volatile long sendStartedAt; // System.nanoTime() du début de l'envoi en cours, 0 si aucun
+
+        Subscriber(Integer parkId, SseEmitter emitter) {
+            this.parkId = parkId;
+            this.emitter = emitter;
+        }
+
+        void offer(Object state) {
+            pending.set(state);
+            schedule();
+        }
+
+        void offerHeartbeat() {
+            if (pending.compareAndSet(null, HEARTBEAT)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Object state;
+                while ((state = pending.getAndSet(null)) != null) {
+                    send(state);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // un état arrivé entre le dernier getAndSet et la remise à false
+            if (pending.get() != null) {
+                schedule();
+            }
+        }
+
+        // envoi commencé depuis plus de timeoutNanos et toujours pas terminé : la socket du client ne se vide plus
+        boolean isStalled(long now, long timeoutNanos) {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && now - startedAt > timeoutNanos;
+        }
+
+        // plus aucun envoi pour cet abonné ; complete sur le thread d'envoi, l'émetteur étant verrouillé par l'envoi bloqué
+        void drop(Throwable cause) {
+            pending.set(null);
+            unsubscribe(this);
+            sender.execute(() -> emitter.completeWithError(cause));
+        }
+
+        private void send(Object state) {
+            sendStartedAt = System.nanoTime();
+            try {
+                if (state == HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (state instanceof Deleted) {
+                    emitter.send(SseEmitter.event().name("deleted").data(Map.of("parkId", parkId)));
+                    emitter.complete();
+                } else {
+                    emitter.send(SseEmitter.event().name("park").data(state));
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // client parti : on arrête d'envoyer
+                pending.set(null);
+                unsubscribe(this);
+                emitter.completeWithError(ex);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+    }
+
+    private record Deleted() {
+    }
+
+    public SseEmitter subscribe(Integer parkId) {
+        ParkOccupancyProjection park = parkRepository.findOccupancyByParkId(parkId)
+            .orElseThrow(() -> new NotFoundException("Park not found with id: " + parkId));
+
+        SseEmitter emitter = createEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(parkId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+
+        subscribers.computeIfAbsent(parkId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+        subscriber.offer(toState(park)); // état initial, le client n'a pas à faire de GET avant
+        return emitter;
+    }
+
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.parkId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    // après le commit : l'état relu par dispatch() est celui qui vient d'être écrit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParkChanged(ParkChangedEvent event) {
+        if (subscribers.containsKey(event.parkId())) {
+            dirtyParks.add(event.parkId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${park.stream.dispatch-interval-ms:250}")
+    public void dispatch() {
+        if (dirtyParks.isEmpty()) {
+            return;
+        }
+        Set<Integer> parkIds = new HashSet<>();
+        for (Integer parkId : dirtyParks) {
+            dirtyParks.remove(parkId);
+            parkIds.add(parkId);
+        }
+
+        // un seul aller-retour en base par passage, quel que soit le nombre d'abonnés
+        Map<Integer, Object> states = new LinkedHashMap<>();
+        for (ParkOccupancyProjection park : parkRepository.findOccupancyByParkIds(parkIds)) {
+            states.put(park.getParkId(), toState(park));
+        }
+        for (Integer parkId : parkIds) {
+            Object state = states.getOrDefault(parkId, new Deleted());
+            for (Subscriber subscriber : subscribers.getOrDefault(parkId, Set.of())) {
+                subscriber.offer(state);
+            }
+        }
+    }
+
+    // commentaire SSE périodique : garde la connexion ouverte derrière les proxys et détecte les clients partis.
+    // Les abonnés dont l'envoi est bloqué depuis trop longtemps sont abandonnés au lieu de recevoir un heartbeat.
+    @Scheduled(fixedDelayString = "${park.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        List<Subscriber> all = new ArrayList<>();
+        subscribers.values().forEach(all::addAll);
+        long now = System.nanoTime();
+        for (Subscriber subscriber : all) {
+            if (subscriber.isStalled(now, sendTimeoutNanos)) {
+                logger.debug("Dropping park {} subscriber: send blocked for more than {} ms",
+                    subscriber.parkId, TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+                subscriber.drop(new TimeoutException("SSE send timed out"));
+            } else {
+                subscriber.offerHeartbeat();
+            }
+        }
+    }
+
+    private Map<String, Object> toState(ParkOccupancyProjection park) {
+        // les entrées/sorties pas encore écrites en base sont dans les compteurs en mémoire
+        Integer occupiedSpace = occupancyService.getLiveOccupiedSpace(park.getParkId());
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("parkId", park.getParkId());
+        state.put("capacity", park.getCapacity());
+        state.put("occupiedSpace", occupiedSpace != null ? occupiedSpace : park.getOccupiedSpace());
+        return state;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdown();
+        logger.info("Park update stream closed");
+    }
+}
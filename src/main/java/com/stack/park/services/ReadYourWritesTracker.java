@@ -0,0 +1,61 @@
+package com.stack.park.services;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.stack.park.config.ReplicaRoutingContext;
+import com.stack.park.events.ParkChangedEvent;
+
+/**
+ * Lire ses propres écritures malgré le retard du réplica : pendant read-your-writes-window après une écriture
+ * sur un park, les lectures de ce park passent par le primaire. Cela vaut pour la requête qui vient d'écrire,
+ * pour celles qui suivent, et pour le cache, qui ne se remplit jamais avec un état du réplica en retard.
+ *
+ * Sans réplica configuré, le suivi est désactivé et tout va déjà au primaire.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final boolean enabled;
+    private final long windowMillis;
+
+    private final ConcurrentHashMap<Integer, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${park.datasource.replica.url:}") String replicaUrl,
+                                 @Value("${park.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.enabled = !replicaUrl.isEmpty() && !window.isZero();
+        this.windowMillis = window.toMillis();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParkChanged(ParkChangedEvent event) {
+        if (enabled) {
+            lastWrites.put(event.parkId(), System.currentTimeMillis());
+        }
+    }
+
+    public boolean isRecentlyWritten(Integer parkId) {
+        if (!enabled) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(parkId);
+        return lastWrite != null && System.currentTimeMillis() - lastWrite < windowMillis;
+    }
+
+    // exécute la lecture sur le primaire si le park vient d'être modifié, sinon là où la transaction la route
+    public <T> T read(Integer parkId, Supplier<T> action) {
+        return isRecentlyWritten(parkId) ? ReplicaRoutingContext.onPrimary(action) : action.get();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowMillis);
+    }
+}
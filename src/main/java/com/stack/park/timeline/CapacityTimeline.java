@@ -0,0 +1,118 @@
+package com.stack.park.timeline;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import com.stack.park.entities.ParkCapacityChange;
+
+/**
+ * Index trié des changements de capacité d'un park, indexé par date de début.
+ *
+ * Les changements d'un park ne se chevauchent pas (addCapacityChange découpe les intervalles existants),
+ * donc le seul changement qui peut couvrir une date D est celui dont la date de début est la plus grande <= D.
+ * Une recherche coûte O(log n) au lieu de parcourir toute la liste.
+ *
+ * Une instance n'est plus modifiée une fois construite par of() : ParkCache la partage entre les requêtes.
+ */
+public class CapacityTimeline {
+
+    /**
+     * Une période [startDate, endDate] pendant laquelle la capacité vaut capacity. endDate null = sans fin.
+     */
+    public record Segment(LocalDate startDate, LocalDate endDate, Integer capacity) {
+
+        public boolean covers(LocalDate date) {
+            return !startDate.isAfter(date) && (endDate == null || !endDate.isBefore(date));
+        }
+    }
+
+    /**
+     * Une période [startDate, endDate] de capacité constante à l'intérieur d'une plage demandée.
+     */
+    public record Interval(LocalDate startDate, LocalDate endDate, Integer capacity) {
+    }
+
+    private final NavigableMap<LocalDate, Segment> segments = new TreeMap<>();
+
+    public static CapacityTimeline of(Collection<ParkCapacityChange> changes) {
+        CapacityTimeline timeline = new CapacityTimeline();
+        for (ParkCapacityChange change : changes) {
+            // en cas de doublon sur la date de début, le premier changement de la liste reste prioritaire
+            timeline.segments.putIfAbsent(change.getStartDate(), toSegment(change));
+        }
+        return timeline;
+    }
+
+    /**
+     * @param date la date cible
+     * @return la capacité planifiée à cette date, ou vide si aucun changement ne la couvre
+     */
+    public Optional<Integer> capacityAt(LocalDate date) {
+        Map.Entry<LocalDate, Segment> entry = segments.floorEntry(date); // plus grande date de début <= date
+        if (entry == null || !entry.getValue().covers(date)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.getValue().capacity());
+    }
+
+    public Integer capacityAt(LocalDate date, Integer defaultCapacity) {
+        return capacityAt(date).orElse(defaultCapacity);
+    }
+
+    /**
+     * Découpe la plage [from, to] en intervalles de capacité constante.
+     *
+     * Balayage des bornes de changements : on saute d'une borne à la suivante au lieu d'avancer jour par jour,
+     * le coût dépend donc du nombre de changements dans la plage et pas du nombre de jours.
+     * Deux intervalles consécutifs de même capacité sont fusionnés.
+     *
+     * @param defaultCapacity la capacité utilisée quand aucun changement ne couvre une date
+     */
+    public List<Interval> intervalsBetween(LocalDate from, LocalDate to, Integer defaultCapacity) {
+        List<Interval> intervals = new ArrayList<>();
+        LocalDate cursor = from;
+
+        while (!cursor.isAfter(to)) {
+            Integer capacity;
+            LocalDate until;
+
+            Map.Entry<LocalDate, Segment> entry = segments.floorEntry(cursor);
+            if (entry != null && entry.getValue().covers(cursor)) {
+                // le curseur est dans un changement : on va jusqu'à sa fin
+                capacity = entry.getValue().capacity();
+                until = entry.getValue().endDate();
+            } else {
+                // le curseur est dans un trou : capacité par défaut jusqu'au prochain changement
+                capacity = defaultCapacity;
+                LocalDate nextStart = segments.higherKey(cursor);
+                until = nextStart != null ? nextStart.minusDays(1) : null;
+            }
+            if (until == null || until.isAfter(to)) {
+                until = to;
+            }
+
+            Interval last = intervals.isEmpty() ? null : intervals.get(intervals.size() - 1);
+            if (last != null && last.capacity().equals(capacity)) {
+                intervals.set(intervals.size() - 1, new Interval(last.startDate(), until, capacity));
+            } else {
+                intervals.add(new Interval(cursor, until, capacity));
+            }
+            cursor = until.plusDays(1);
+        }
+        return intervals;
+    }
+
+    public int size() {
+        return segments.size();
+    }
+
+    private static Segment toSegment(ParkCapacityChange change) {
+        return new Segment(change.getStartDate(), change.getEndDate(), change.getNewCapacity());
+    }
+}
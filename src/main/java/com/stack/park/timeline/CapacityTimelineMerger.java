@@ -0,0 +1,145 @@
+package com.stack.park.timeline;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.stack.park.entities.ParkCapacityChange;
+
+/**
+ * Fusionne de nouveaux changements de capacité dans la planification existante d'un park.
+ *
+ * Un nouveau changement [start, end] remplace la planification sur sa période : chaque changement existant qui le
+ * chevauche est raccourci, coupé en deux ou supprimé, en une seule passe ordonnée à partir de la date de début.
+ * Le merger garde la trace des lignes insérées, modifiées et supprimées pour que seules celles-ci soient écrites en base.
+ *
+ * Cette classe n'est pas thread-safe : une instance par park et par opération.
+ */
+public class CapacityTimelineMerger {
+
+    private final NavigableMap<LocalDate, ParkCapacityChange> changes = new TreeMap<>();
+
+    // identité des objets (ParkCapacityChange ne redéfinit pas equals) : une ligne n'apparaît que dans un seul ensemble
+    private final Set<ParkCapacityChange> inserted = new LinkedHashSet<>();
+    private final Set<ParkCapacityChange> updated = new LinkedHashSet<>();
+    private final Set<ParkCapacityChange> deleted = new LinkedHashSet<>();
+
+    private int splits;
+
+    public CapacityTimelineMerger(Collection<ParkCapacityChange> existingChanges) {
+        for (ParkCapacityChange change : existingChanges) {
+            changes.put(change.getStartDate(), change);
+        }
+    }
+
+    /**
+     * Ajoute un changement et découpe tous les changements existants qui le chevauchent.
+     * Le nouveau changement doit déjà référencer son park.
+     */
+    public void merge(ParkCapacityChange newChange) {
+        LocalDate start = newChange.getStartDate();
+        LocalDate end = newChange.getEndDate();
+        if (start == null) {
+            throw new IllegalArgumentException("startDate is mandatory");
+        }
+        if (end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        // 1. le changement qui commence avant start et qui déborde sur la nouvelle période
+        Map.Entry<LocalDate, ParkCapacityChange> before = changes.lowerEntry(start);
+        if (before != null && endsOnOrAfter(before.getValue(), start)) {
+            ParkCapacityChange existing = before.getValue();
+            if (end != null && endsAfter(existing, end)) {
+                // l'existant englobe la nouvelle période : on garde la partie après dans une nouvelle ligne
+                ParkCapacityChange tail = copyOf(existing, end.plusDays(1), existing.getEndDate());
+                changes.put(tail.getStartDate(), tail);
+                inserted.add(tail);
+            }
+            existing.setEndDate(start.minusDays(1));
+            markUpdated(existing);
+            splits++;
+        }
+
+        // 2. les changements qui commencent dans [start, end] : supprimés, ou raccourcis s'ils dépassent end
+        Collection<ParkCapacityChange> inside = end != null
+            ? changes.subMap(start, true, end, true).values()
+            : changes.tailMap(start, true).values();
+        for (ParkCapacityChange existing : new ArrayList<>(inside)) {
+            changes.remove(existing.getStartDate());
+            if (end != null && endsAfter(existing, end)) {
+                existing.setStartDate(end.plusDays(1));
+                changes.put(existing.getStartDate(), existing);
+                markUpdated(existing);
+                splits++;
+            } else {
+                markDeleted(existing);
+            }
+        }
+
+        // 3. la nouvelle période est libre
+        changes.put(start, newChange);
+        inserted.add(newChange);
+    }
+
+    public Collection<ParkCapacityChange> getChanges() {
+        return Collections.unmodifiableCollection(changes.values());
+    }
+
+    public CapacityTimeline toTimeline() {
+        return CapacityTimeline.of(changes.values());
+    }
+
+    public Set<ParkCapacityChange> getInserted() {
+        return Collections.unmodifiableSet(inserted);
+    }
+
+    public Set<ParkCapacityChange> getUpdated() {
+        return Collections.unmodifiableSet(updated);
+    }
+
+    public Set<ParkCapacityChange> getDeleted() {
+        return Collections.unmodifiableSet(deleted);
+    }
+
+    // nombre de changements existants découpés (raccourcis ou coupés en deux) par les nouveaux changements
+    public int getSplits() {
+        return splits;
+    }
+
+    private void markUpdated(ParkCapacityChange change) {
+        if (!inserted.contains(change)) { // une ligne pas encore insérée sera insérée avec ses nouvelles valeurs
+            updated.add(change);
+        }
+    }
+
+    private void markDeleted(ParkCapacityChange change) {
+        if (!inserted.remove(change)) { // une ligne jamais insérée n'a rien à supprimer en base
+            updated.remove(change);
+            deleted.add(change);
+        }
+    }
+
+    private static boolean endsOnOrAfter(ParkCapacityChange change, LocalDate date) {
+        return change.getEndDate() == null || !change.getEndDate().isBefore(date);
+    }
+
+    private static boolean endsAfter(ParkCapacityChange change, LocalDate date) {
+        return change.getEndDate() == null || change.getEndDate().isAfter(date);
+    }
+
+    private static ParkCapacityChange copyOf(ParkCapacityChange change, LocalDate startDate, LocalDate endDate) {
+        ParkCapacityChange copy = new ParkCapacityChange();
+        copy.setPark(change.getPark());
+        copy.setNewCapacity(change.getNewCapacity());
+        copy.setStartDate(startDate);
+        copy.setEndDate(endDate);
+        return copy;
+    }
+}
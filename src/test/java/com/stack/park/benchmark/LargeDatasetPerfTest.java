@@ -0,0 +1,206 @@
+package com.stack.park.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Suite de charge de bout en bout sur H2 embarqué, avec un jeu de données de taille réelle.
+ *
+ * Exclu du build par défaut, à lancer avant une mise en production avec : mvn -Pperf test
+ * Taille et charge réglables en propriétés système, par exemple :
+ *   mvn -Pperf test -Dperf.parks=100000 -Dperf.max-changes=1000 -Dperf.clients=50 -Dperf.duration=15
+ *
+ * La plupart des parks ont quelques changements de capacité, un park sur perf.heavy-every en a perf.max-changes.
+ * Chaque endpoint est chargé à son tour par perf.clients clients simultanés. Le rapport (latences et requêtes SQL
+ * par appel, comptées par les statistiques Hibernate) est affiché et écrit dans target/perf-report.csv.
+ */
+@Tag("perf")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:perf;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.format_sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+    "park.capacity-rollforward.cron=-"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LargeDatasetPerfTest {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${perf.parks:100000}")
+    private int parkCount;
+
+    @Value("${perf.max-changes:1000}")
+    private int maxChanges;
+
+    @Value("${perf.heavy-every:1000}")
+    private int heavyEvery;
+
+    @Value("${perf.clients:50}")
+    private int clients;
+
+    @Value("${perf.duration:15}")
+    private int durationSeconds;
+
+    @Value("${perf.warmup:5}")
+    private int warmupSeconds;
+
+    @Value("${perf.seed:42}")
+    private long seed;
+
+    private int firstParkId;
+    private long changeCount;
+
+    @BeforeAll
+    void generateDataset() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        for (int from = 0; from < parkCount; from += BATCH_SIZE) {
+            List<Integer> batch = IntStream.range(from, Math.min(from + BATCH_SIZE, parkCount)).boxed().toList();
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO park (park_name, capacity, base_capacity, occupied_space, version, created_date, last_modified_date) VALUES (?, ?, ?, ?, 0, ?, ?)",
+                batch, batch.size(),
+                (ps, index) -> {
+                    int capacity = 100 + index % 50000;
+                    ps.setString(1, "Perf park " + index);
+                    ps.setInt(2, capacity);
+                    ps.setInt(3, capacity);
+                    ps.setInt(4, capacity / 2);
+                    ps.setTimestamp(5, timestamp);
+                    ps.setTimestamp(6, timestamp);
+                });
+        }
+        firstParkId = jdbcTemplate.queryForObject("SELECT MIN(park_id) FROM park", Integer.class);
+
+        // planifications : changements d'une semaine qui se suivent, centrés sur aujourd'hui
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        List<Object[]> changes = new ArrayList<>();
+        for (int index = 0; index < parkCount; index++) {
+            int count = index % heavyEvery == 0 ? maxChanges : random.nextInt(Math.min(10, maxChanges) + 1);
+            LocalDate startDate = today.minusWeeks(count / 2);
+            for (int i = 0; i < count; i++) {
+                changes.add(new Object[] { firstParkId + index, 50 + random.nextInt(50000), startDate, startDate.plusDays(6) });
+                startDate = startDate.plusWeeks(1);
+            }
+            if (changes.size() >= BATCH_SIZE * 10) {
+                insertChanges(changes);
+            }
+        }
+        insertChanges(changes);
+
+        System.out.printf("%nDataset: %,d parks, %,d capacity changes, generated in %ds%n",
+            parkCount, changeCount, Duration.ofNanos(System.nanoTime() - start).toSeconds());
+    }
+
+    private void insertChanges(List<Object[]> changes) {
+        jdbcTemplate.batchUpdate("INSERT INTO park_capacity_change (park_id, new_capacity, start_date, end_date) VALUES (?, ?, ?, ?)",
+            changes, BATCH_SIZE,
+            (ps, change) -> {
+                ps.setInt(1, (Integer) change[0]);
+                ps.setInt(2, (Integer) change[1]);
+                ps.setDate(3, Date.valueOf((LocalDate) change[2]));
+                ps.setDate(4, Date.valueOf((LocalDate) change[3]));
+            });
+        changeCount += changes.size();
+        changes.clear();
+    }
+
+    @Test
+    void qualifyEndpoints() throws Exception {
+        LocalDate today = LocalDate.now();
+        Map<String, IntFunction<String>> endpoints = new LinkedHashMap<>();
+        endpoints.put("GET /api/parks/{id}", i -> "/api/parks/" + parkId(i));
+        endpoints.put("GET /api/parks/{id}/capacity-at-date", i -> "/api/parks/" + parkId(i) + "/capacity-at-date?date=" + today.plusDays(i % 365));
+        endpoints.put("GET /api/parks/{id}/capacities-between-dates", i -> "/api/parks/" + parkId(i)
+            + "/capacities-between-dates?startDate=" + today + "&endDate=" + today.plusDays(90));
+        // parks avec une longue planification : le pire cas du calcul des intervalles
+        int heavyParks = (parkCount + heavyEvery - 1) / heavyEvery;
+        endpoints.put("GET /api/parks/{id}/capacities-between-dates (heavy)", i -> "/api/parks/" + (firstParkId + (i % heavyParks) * heavyEvery)
+            + "/capacities-between-dates?startDate=" + today.minusYears(1) + "&endDate=" + today.plusYears(1));
+        endpoints.put("GET /api/parks/page", i -> "/api/parks/page?size=100&afterId=" + parkId(i));
+        endpoints.put("GET /api/parks/capacity-range", i -> "/api/parks/capacity-range?size=100&min=" + (i % 40000) + "&max=" + (i % 40000 + 5000));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LoadDriver driver = new LoadDriver();
+        List<String> report = new ArrayList<>();
+        report.add("endpoint,requests,errors,throughput,p50_ms,p99_ms,sql_per_request");
+
+        System.out.printf("%n%-55s %10s %7s %10s %9s %9s %8s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "sql/req");
+        for (Map.Entry<String, IntFunction<String>> endpoint : endpoints.entrySet()) {
+            IntFunction<URI> uris = i -> URI.create("http://localhost:" + port + endpoint.getValue().apply(i));
+
+            driver.measure(clients, Duration.ofSeconds(warmupSeconds), uris);
+            statistics.clear();
+            LoadDriver.Result result = driver.measure(clients, Duration.ofSeconds(durationSeconds), uris);
+            double sqlPerRequest = result.requests() == 0 ? 0 : (double) statistics.getPrepareStatementCount() / result.requests();
+
+            System.out.printf("%-55s %,10d %7d %,10.0f %9.2f %9.2f %8.2f%n", endpoint.getKey(), result.requests(), result.errors(),
+                result.throughput(), result.p50Millis(), result.p99Millis(), sqlPerRequest);
+            report.add(String.format(Locale.ROOT, "\"%s\",%d,%d,%.0f,%.2f,%.2f,%.2f", endpoint.getKey(), result.requests(),
+                result.errors(), result.throughput(), result.p50Millis(), result.p99Millis(), sqlPerRequest));
+
+            assertTrue(result.requests() > 0, endpoint.getKey() + " was never called");
+            assertEquals(0, result.errors(), endpoint.getKey() + " returned errors");
+        }
+        writeReport(report);
+    }
+
+    // parks répartis sur tout le jeu de données : le cache (10 000 parks par défaut) ne couvre pas tout
+    private int parkId(int i) {
+        return firstParkId + Math.floorMod(i * 7919, parkCount);
+    }
+
+    private static void writeReport(List<String> lines) throws IOException {
+        Path report = Path.of("target", "perf-report.csv");
+        Files.createDirectories(report.getParent());
+        Files.write(report, lines);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+}
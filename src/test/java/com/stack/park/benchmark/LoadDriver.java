@@ -0,0 +1,99 @@
+package com.stack.park.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Envoie des requêtes GET en boucle fermée depuis un nombre fixe de clients pendant une durée donnée,
+ * et mesure le débit et les percentiles de latence. Les clients tournent sur des threads virtuels
+ * pour que le générateur de charge ne soit pas lui-même le goulot d'étranglement.
+ */
+class LoadDriver {
+
+    record Result(int requests, int errors, double throughput, double p50Millis, double p99Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%,d requests, %d errors, %.0f req/s, p50 %.2f ms, p99 %.2f ms",
+                requests, errors, throughput, p50Millis, p99Millis);
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    /**
+     * @param uris uri de la i-ème requête d'un client (pour répartir la charge sur plusieurs parks)
+     */
+    Result run(int clients, Duration warmup, Duration duration, IntFunction<URI> uris) throws Exception {
+        measure(clients, warmup, uris); // JIT, pool de connexions et caches chauds avant la mesure
+        return measure(clients, duration, uris);
+    }
+
+    // une seule passe de mesure, sans préchauffage
+    Result measure(int clients, Duration duration, IntFunction<URI> uris) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int clientIndex = c;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    for (int i = clientIndex; System.nanoTime() < deadline; i += clients) {
+                        HttpRequest request = HttpRequest.newBuilder(uris.apply(i)).timeout(Duration.ofSeconds(30)).GET().build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (java.io.IOException ex) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Result(all.length, errors.get(), all.length / elapsedSeconds, percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
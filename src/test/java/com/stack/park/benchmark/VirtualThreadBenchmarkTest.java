@@ -0,0 +1,95 @@
+package com.stack.park.benchmark;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.stack.park.ParkApplication;
+import com.stack.park.entities.Park;
+import com.stack.park.entities.ParkCapacityChange;
+import com.stack.park.repositories.ParkRepository;
+
+/**
+ * Compare threads de plateforme et threads virtuels sur les endpoints de capacité (débit et p99).
+ *
+ * Exclu du build par défaut, à lancer avec : mvn -Pbenchmark test
+ * Paramètres (propriétés système) : benchmark.parks, benchmark.clients, benchmark.duration (secondes),
+ * benchmark.pool-size (connexions Hikari). Le cache est désactivé pour que chaque requête attende réellement JDBC.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+
+    private static final int PARKS = Integer.getInteger("benchmark.parks", 200);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 500);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.duration", 20));
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final int POOL_SIZE = Integer.getInteger("benchmark.pool-size", 10);
+
+    @Test
+    void compareCapacityEndpoints() throws Exception {
+        LoadDriver.Result platform = runWith(false);
+        LoadDriver.Result virtual = runWith(true);
+
+        System.out.printf("%nCapacity endpoints, %d clients, %d connections, %ds%n", CLIENTS, POOL_SIZE, DURATION.toSeconds());
+        System.out.println("  platform threads: " + platform);
+        System.out.println("  virtual threads:  " + virtual);
+    }
+
+    private LoadDriver.Result runWith(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ParkApplication.class).run(
+                "--spring.profiles.active=test",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + mode + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--park.cache.maximum-size=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=warn")) {
+
+            List<Integer> parkIds = seed(context.getBean(ParkRepository.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LocalDate today = LocalDate.now();
+
+            // alterne les deux lectures de capacité sur tous les parks
+            return new LoadDriver().run(CLIENTS, WARMUP, DURATION, i -> {
+                Integer parkId = parkIds.get(i % parkIds.size());
+                String path = i % 2 == 0
+                    ? "/api/parks/" + parkId + "/capacity-at-date?date=" + today.plusDays(i % 365)
+                    : "/api/parks/" + parkId + "/capacities-between-dates?startDate=" + today + "&endDate=" + today.plusDays(30);
+                return URI.create("http://localhost:" + port + path);
+            });
+        }
+    }
+
+    // chaque park a un changement de capacité par mois sur un an
+    private static List<Integer> seed(ParkRepository parkRepository) {
+        List<Park> parks = new ArrayList<>();
+        LocalDate start = LocalDate.now().withDayOfMonth(1);
+        for (int p = 0; p < PARKS; p++) {
+            Park park = new Park();
+            park.setParkName("Benchmark park " + p);
+            park.setCapacity(100 + p);
+            park.setBaseCapacity(100 + p);
+            park.setOccupiedSpace(0);
+            for (int month = 0; month < 12; month++) {
+                ParkCapacityChange change = new ParkCapacityChange();
+                change.setPark(park);
+                change.setNewCapacity(50 + month * 10);
+                change.setStartDate(start.plusMonths(month));
+                change.setEndDate(start.plusMonths(month + 1).minusDays(1));
+                park.getCapacityChanges().add(change);
+            }
+            parks.add(park);
+        }
+        return parkRepository.saveAll(parks).stream().map(Park::getParkId).toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.stack.park.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.stack.park.entities.Park;
+import com.stack.park.services.ParkService;
+
+/**
+ * Routage primaire / réplica sur deux bases H2 embarquées. Le réplica n'est jamais alimenté automatiquement :
+ * replicate() y recopie le primaire, ce qui permet de simuler un réplica en retard.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_ON_EXIT=FALSE",
+    "park.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+    "park.datasource.replica.username=sa",
+    "park.datasource.replica.read-your-writes-window=1h",
+    "park.capacity-rollforward.cron=-"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private ParkService parkService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Test
+    void readOnlyTransactionsGoToReplica_WritesAndRecentlyWrittenParksToPrimary() {
+        Park replicated = parkService.create(newPark("Replicated park"));
+        replicate();
+        Park notReplicated = parkService.create(newPark("Not yet replicated park"));
+
+        // findAll est en lecture seule : il lit le réplica, qui n'a pas encore le second park
+        List<Park> fromReplica = parkService.findAll();
+        assertEquals(1, fromReplica.size());
+        assertEquals(replicated.getParkId(), fromReplica.get(0).getParkId());
+
+        // ReplicaRoutingContext force le primaire
+        assertEquals(2, ReplicaRoutingContext.onPrimary(parkService::findAll).size());
+
+        // le park vient d'être écrit : sa lecture reste sur le primaire malgré le retard du réplica
+        assertTrue(parkService.findById(notReplicated.getParkId()).isPresent());
+    }
+
+    private static Park newPark(String name) {
+        Park park = new Park();
+        park.setParkName(name);
+        park.setCapacity(100);
+        park.setOccupiedSpace(0);
+        return park;
+    }
+
+    // recopie schéma et données du primaire dans le réplica (SCRIPT / DROP ALL OBJECTS sont spécifiques à H2)
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT", String.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+}
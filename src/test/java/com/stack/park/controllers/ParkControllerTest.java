@@ -3,14 +3,22 @@ package com.stack.park.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stack.park.entities.Park;
 import com.stack.park.services.ParkService;
+import com.stack.park.services.ParkUpdatePublisher;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.util.Optional;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +37,9 @@ public class ParkControllerTest {
     @MockBean
     private ParkService parkService;
 
+    @MockBean
+    private ParkUpdatePublisher parkUpdatePublisher;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -68,4 +79,38 @@ public class ParkControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Occupied space cannot exceed capacity"));
     }
+
+    @Test
+    void getCapacitiesAtDate_NullParkIdOrDate() throws Exception {
+        // un élément null est refusé par la validation au lieu d'atteindre le service
+        mockMvc.perform(post("/api/parks/capacity-at-date")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"parkIds\":[1,null],\"dates\":[\"2024-01-01\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['parkIds[]']").value("parkIds cannot contain null"));
+
+        mockMvc.perform(post("/api/parks/capacity-at-date")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"parkIds\":[1],\"dates\":[null]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['dates[]']").value("dates cannot contain null"));
+
+        verify(parkService, never()).getCapacitiesAtDates(any(), any());
+    }
+
+    @Test
+    void getParkById_NotModified() throws Exception {
+        park.setVersion(3L);
+        when(parkService.findById(21213)).thenReturn(Optional.of(park));
+
+        // 1er appel : l'ETag est renvoyé avec le park
+        mockMvc.perform(get("/api/parks/21213"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"park-21213-3\""));
+
+        // le client renvoie l'ETag : le park n'a pas changé, réponse 304 sans corps
+        mockMvc.perform(get("/api/parks/21213").header("If-None-Match", "\"park-21213-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
 }
@@ -0,0 +1,71 @@
+package com.stack.park.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class GeoGridTest {
+
+    @Test
+    void testNearest_MatchesFullScan() {
+        Random random = new Random(7);
+        GeoGrid<Integer> grid = new GeoGrid<>(0.05);
+        double[][] points = new double[5000][];
+        for (int id = 0; id < points.length; id++) {
+            // autour de Paris, sur environ 200 km
+            points[id] = new double[] { 48.86 + random.nextGaussian(), 2.35 + random.nextGaussian() * 1.5 };
+            grid.put(id, points[id][0], points[id][1], id % 3); // valeur 0 = park complet
+        }
+
+        for (int query = 0; query < 200; query++) {
+            double latitude = 48.86 + random.nextGaussian();
+            double longitude = 2.35 + random.nextGaussian() * 1.5;
+
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 0; id < points.length; id++) {
+                if (id % 3 != 0 && GeoGrid.distanceKm(latitude, longitude, points[id][0], points[id][1]) <= 30) {
+                    expected.add(id);
+                }
+            }
+            expected.sort(Comparator.comparingDouble(id -> GeoGrid.distanceKm(latitude, longitude, points[id][0], points[id][1])));
+            expected = expected.subList(0, Math.min(5, expected.size()));
+
+            List<Integer> actual = grid.nearest(latitude, longitude, 5, 30, free -> free > 0).stream()
+                .map(GeoGrid.Neighbour::id).toList();
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testNearest_AcrossAntimeridian() {
+        GeoGrid<String> grid = new GeoGrid<>(0.5);
+        grid.put(1, -17.0, 179.9, "east");
+        grid.put(2, -17.0, -179.9, "west");
+        grid.put(3, -17.0, 178.0, "far");
+
+        List<GeoGrid.Neighbour<String>> nearest = grid.nearest(-17.0, -179.95, 2, 100, value -> true);
+
+        assertEquals(List.of(2, 1), nearest.stream().map(GeoGrid.Neighbour::id).toList());
+        assertTrue(nearest.get(1).distanceKm() < 20);
+    }
+
+    @Test
+    void testPutMovesAndRemoveDeletes() {
+        GeoGrid<String> grid = new GeoGrid<>(0.05);
+        grid.put(1, 45.0, 5.0, "park");
+        grid.put(1, 46.0, 6.0, "park");
+
+        assertTrue(grid.nearest(45.0, 5.0, 1, 10, value -> true).isEmpty());
+        assertEquals(1, grid.nearest(46.0, 6.0, 1, 10, value -> true).size());
+
+        grid.remove(1);
+        assertEquals(0, grid.size());
+        assertTrue(grid.nearest(46.0, 6.0, 1, 10, value -> true).isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package com.stack.park.querystats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Les budgets de park.query-budget.limits appliqués pour de vrai : contexte complet sur H2, requêtes comptées par Hibernate,
+ * et fail-on-exceed=true (application-test.properties) fait échouer l'appel qui dépasse son budget avant l'écriture du corps.
+ * Les tests @WebMvcTest des contrôleurs mockent les services et n'exécutent aucune requête SQL.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:querybudget;DB_CLOSE_ON_EXIT=FALSE",
+    "park.capacity-rollforward.cron=-"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryBudgetIntegrationTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryStatsRegistry queryStatsRegistry;
+
+    @Autowired
+    private QueryBudgetProperties queryBudgetProperties;
+
+    private int parkId;
+    private int otherParkId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM park_capacity_change");
+        jdbcTemplate.update("DELETE FROM park");
+        parkId = park("Budget North", 100, 48.85, 2.35);
+        otherParkId = park("Budget South", 50, 48.86, 2.36);
+        jdbcTemplate.update("INSERT INTO park_capacity_change (park_id, new_capacity, start_date, end_date) VALUES (?, 150, ?, ?)",
+            parkId, Date.valueOf(TODAY.plusDays(5)), Date.valueOf(TODAY.plusDays(10)));
+        queryStatsRegistry.reset();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void budgetedEndpointsStayWithinTheirBudget() throws Exception {
+        // deux appels au même park : le premier charge le cache, le second le lit
+        mockMvc.perform(get("/api/parks/{id}", parkId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/{id}", parkId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/{id}/capacity-at-date", otherParkId).param("date", TODAY.plusDays(6).toString()))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/{id}/capacities-between-dates", otherParkId)
+                .param("startDate", TODAY.toString()).param("endDate", TODAY.plusDays(30).toString()))
+            .andExpect(status().isOk());
+        mockMvc.perform(post("/api/parks/capacity-at-date").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"parkIds\":[" + parkId + "," + otherParkId + "],\"dates\":[\"" + TODAY + "\",\"" + TODAY.plusDays(6) + "\"]}"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/page").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/capacity-range").param("min", "10").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/parks/{id}/capacity-change", parkId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"newCapacity\":200,\"startDate\":\"" + TODAY.plusDays(8) + "\",\"endDate\":\"" + TODAY.plusDays(20) + "\"}"))
+            .andExpect(status().is2xxSuccessful());
+        mockMvc.perform(post("/api/parks/occupancy/sync").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"parkId\":" + parkId + ",\"delta\":3,\"sequence\":1},"
+                    + "{\"parkId\":" + otherParkId + ",\"delta\":2,\"sequence\":1}]"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/nearest").param("lat", "48.85").param("lon", "2.35")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/availability").param("date", TODAY.plusDays(6).toString())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/parks/autocomplete").param("prefix", "Budget")).andExpect(status().isOk());
+
+        Map<String, Object> snapshot = queryStatsRegistry.snapshot(queryBudgetProperties);
+        for (String endpoint : queryBudgetProperties.getLimits().keySet()) {
+            Map<String, Object> stats = (Map<String, Object>) snapshot.get(endpoint);
+            assertTrue(stats != null, endpoint + " was not called");
+            assertEquals(0L, stats.get("budgetExceeded"), endpoint);
+        }
+        // les requêtes sont bien comptées : sans quoi aucun budget ne pourrait être dépassé
+        assertTrue((Long) ((Map<String, Object>) snapshot.get("ParkController.addCapacityChange")).get("maxStatements") > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void endpointOverItsBudgetFailsBeforeTheBodyIsWritten() throws Exception {
+        Integer limit = queryBudgetProperties.getLimits().put("ParkController.getParksPage", 0);
+        try {
+            ServletException thrown = assertThrows(ServletException.class,
+                () -> mockMvc.perform(get("/api/parks/page").param("size", "1")));
+            assertTrue(thrown.getCause() instanceof QueryBudgetExceededException);
+            assertTrue(thrown.getCause().getMessage().startsWith("Query budget exceeded for ParkController.getParksPage"));
+            Map<String, Object> stats = (Map<String, Object>) queryStatsRegistry.snapshot(queryBudgetProperties).get("ParkController.getParksPage");
+            assertEquals(1L, stats.get("budgetExceeded"));
+        } finally {
+            queryBudgetProperties.getLimits().put("ParkController.getParksPage", limit);
+        }
+    }
+
+    private int park(String name, int capacity, double latitude, double longitude) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO park (park_name, capacity, base_capacity, occupied_space, latitude, longitude, version, created_date, last_modified_date) "
+            + "VALUES (?, ?, ?, 0, ?, ?, 0, ?, ?)", name, capacity, capacity, latitude, longitude, now, now);
+        return jdbcTemplate.queryForObject("SELECT park_id FROM park WHERE park_name = ?", Integer.class, name);
+    }
+
+}
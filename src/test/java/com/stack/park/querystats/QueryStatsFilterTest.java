@@ -0,0 +1,87 @@
+package com.stack.park.querystats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+
+public class QueryStatsFilterTest {
+
+    private QueryStatsRegistry registry;
+    private QueryBudgetProperties budget;
+    private MockHttpServletRequest request;
+
+    // contrôleur factice : seul le nom de la classe et de la méthode servent de clé
+    static class SampleController {
+        public void getSample() {
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new QueryStatsRegistry();
+        budget = new QueryBudgetProperties();
+        budget.getLimits().put("SampleController.getSample", 2);
+
+        request = new MockHttpServletRequest("GET", "/api/sample");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+            new HandlerMethod(new SampleController(), SampleController.class.getMethod("getSample")));
+    }
+
+    // simule un endpoint qui exécute 3 requêtes SQL
+    private final FilterChain threeStatements = (req, res) -> {
+        RequestQueryStats.statementPrepared();
+        RequestQueryStats.statementPrepared();
+        RequestQueryStats.statementPrepared();
+        RequestQueryStats.entityLoaded();
+    };
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStatementsAreRecordedPerEndpoint() throws Exception {
+        new QueryStatsFilter(registry, budget).doFilter(request, new MockHttpServletResponse(), threeStatements);
+
+        Map<String, Object> stats = (Map<String, Object>) registry.snapshot(budget).get("SampleController.getSample");
+        assertEquals(1L, stats.get("requests"));
+        assertEquals(3L, stats.get("maxStatements"));
+        assertEquals(1L, stats.get("budgetExceeded"));
+        assertNull(RequestQueryStats.current()); // rien ne reste attaché au thread
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailOnExceed() {
+        budget.setFailOnExceed(true);
+        QueryStatsHeaderAdvice advice = new QueryStatsHeaderAdvice();
+        ReflectionTestUtils.setField(advice, "budget", budget);
+
+        // le corps n'est pas encore écrit quand le budget est vérifié : la réponse est refusée, la requête reste comptée
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        QueryBudgetExceededException thrown = assertThrows(QueryBudgetExceededException.class, () -> {
+            new QueryStatsFilter(registry, budget).doFilter(request, response, (req, res) -> {
+                threeStatements.doFilter(req, res);
+                advice.beforeBodyWrite(Map.of(), null, MediaType.APPLICATION_JSON, MappingJackson2HttpMessageConverter.class,
+                    new ServletServerHttpRequest(request), new ServletServerHttpResponse(response));
+            });
+        });
+        assertEquals(true, thrown.getMessage().startsWith("Query budget exceeded for SampleController.getSample"));
+        assertFalse(response.isCommitted());
+        assertEquals(1L, ((Map<String, Object>) registry.snapshot(budget).get("SampleController.getSample")).get("budgetExceeded"));
+    }
+}
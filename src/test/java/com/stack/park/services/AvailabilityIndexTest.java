@@ -0,0 +1,181 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.stack.park.dto.ParkAvailabilityProjection;
+import com.stack.park.dto.ParkCapacityAtDateProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
+import com.stack.park.repositories.ParkRepository;
+
+public class AvailabilityIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 1);
+
+    private ParkRepository parkRepository;
+    private ParkCapacityChangeRepository parkCapacityChangeRepository;
+    private OccupancyService occupancyService;
+    private AvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        parkRepository = mock(ParkRepository.class);
+        parkCapacityChangeRepository = mock(ParkCapacityChangeRepository.class);
+        occupancyService = mock(OccupancyService.class);
+        availabilityIndex = new AvailabilityIndex(2);
+        ReflectionTestUtils.setField(availabilityIndex, "parkRepository", parkRepository);
+        ReflectionTestUtils.setField(availabilityIndex, "parkCapacityChangeRepository", parkCapacityChangeRepository);
+        ReflectionTestUtils.setField(availabilityIndex, "occupancyService", occupancyService);
+
+        // park 4 : 40 places planifiées à cette date au lieu de 10
+        List<ParkAvailabilityProjection> parks = List.of(park(1, 50, 10), park(2, 30, 0), park(3, 50, 45), park(4, 10, 5), park(5, 50, 0));
+        List<ParkCapacityAtDateProjection> scheduled = List.of(capacity(4, 40));
+        when(parkRepository.findAvailability()).thenReturn(parks);
+        when(parkCapacityChangeRepository.findCapacitiesAtDate(DATE)).thenReturn(scheduled);
+        // pas de compteur en mémoire : l'occupation en base fait foi
+        when(occupancyService.getLiveOccupiedSpace(anyInt())).thenReturn(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAvailable_OrdersByCapacityAndPaginates() {
+        Map<String, Object> first = availabilityIndex.findAvailable(DATE, 20, null, null, 2);
+
+        // park 3 (5 places libres) est écarté, park 4 n'a que 35 places libres mais 40 de capacité à cette date
+        List<Map<String, Object>> items = (List<Map<String, Object>>) first.get("items");
+        assertEquals(List.of(1, 5), items.stream().map(item -> item.get("parkId")).toList());
+        assertEquals(40, items.get(0).get("freeSpaces"));
+        assertEquals(50, first.get("nextAfterCapacity"));
+        assertEquals(5, first.get("nextAfterId"));
+
+        Map<String, Object> second = availabilityIndex.findAvailable(DATE, 20, 50, 5, 2);
+        items = (List<Map<String, Object>>) second.get("items");
+        assertEquals(List.of(4, 2), items.stream().map(item -> item.get("parkId")).toList());
+        assertEquals(35, items.get(0).get("freeSpaces"));
+
+        Map<String, Object> last = availabilityIndex.findAvailable(DATE, 20, 30, 2, 2);
+        assertEquals(List.of(), last.get("items"));
+        assertNull(last.get("nextAfterId"));
+
+        // une seule construction pour les trois pages
+        verify(parkRepository, times(1)).findAvailability();
+        verify(parkCapacityChangeRepository, times(1)).findCapacitiesAtDate(DATE);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAvailable_LiveCounterOverridesStoredOccupancy() {
+        // park 3 : 45 places occupées en base, mais les sorties pas encore écrites le ramènent à 10
+        when(occupancyService.getLiveOccupiedSpace(3)).thenReturn(10);
+        // park 1 : 10 places occupées en base, 45 d'après le compteur
+        when(occupancyService.getLiveOccupiedSpace(1)).thenReturn(45);
+
+        Map<String, Object> page = availabilityIndex.findAvailable(DATE, 20, null, null, 2);
+
+        List<Map<String, Object>> items = (List<Map<String, Object>>) page.get("items");
+        assertEquals(List.of(3, 5), items.stream().map(item -> item.get("parkId")).toList());
+        assertEquals(40, items.get(0).get("freeSpaces"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAvailable_CapacityChangeReloadsOnlyThatPark() {
+        availabilityIndex.findAvailable(DATE, 1, null, null, 10);
+
+        List<ParkAvailabilityProjection> reloaded = List.of(park(2, 30, 0));
+        List<ParkCapacityAtDateProjection> rescheduled = List.of(capacity(2, 80));
+        when(parkRepository.findAvailabilityByParkIds(anyCollection())).thenReturn(reloaded);
+        when(parkCapacityChangeRepository.findCapacitiesAtDateByParkIds(anyCollection(), eq(DATE))).thenReturn(rescheduled);
+        availabilityIndex.onParkChanged(new ParkChangedEvent(2, ParkChangedEvent.Type.CAPACITY));
+
+        Map<String, Object> page = availabilityIndex.findAvailable(DATE, 1, null, null, 1);
+        Map<String, Object> first = ((List<Map<String, Object>>) page.get("items")).get(0);
+        assertEquals(2, first.get("parkId"));
+        assertEquals(80, first.get("capacity"));
+
+        verify(parkRepository).findAvailabilityByParkIds(List.of(2));
+        verify(parkCapacityChangeRepository).findCapacitiesAtDateByParkIds(List.of(2), DATE);
+        verify(parkRepository, times(1)).findAvailability();
+        verify(parkCapacityChangeRepository, times(1)).findCapacitiesAtDate(DATE);
+    }
+
+    @Test
+    void testFindAvailable_OccupancyChangeDoesNotTouchDateIndex() {
+        availabilityIndex.findAvailable(DATE, 1, null, null, 10);
+
+        List<ParkAvailabilityProjection> reloaded = List.of(park(1, 50, 49));
+        when(parkRepository.findAvailabilityByParkIds(anyCollection())).thenReturn(reloaded);
+        availabilityIndex.onParkChanged(new ParkChangedEvent(1, ParkChangedEvent.Type.OCCUPANCY));
+        availabilityIndex.findAvailable(DATE, 1, null, null, 10);
+
+        verify(parkRepository).findAvailabilityByParkIds(List.of(1));
+        verify(parkCapacityChangeRepository, never()).findCapacitiesAtDateByParkIds(anyCollection(), eq(DATE));
+    }
+
+    @Test
+    void testFindAvailable_ColdDateDoesNotBlockOtherDates() throws Exception {
+        LocalDate coldDate = DATE.plusDays(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(parkCapacityChangeRepository.findCapacitiesAtDate(coldDate)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, Object>> cold = executor.submit(() -> availabilityIndex.findAvailable(coldDate, 1, null, null, 10));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+            // la date froide est en cours de construction : une recherche à une autre date répond quand même
+            assertEquals(5, ((List<?>) availabilityIndex.findAvailable(DATE, 1, null, null, 10).get("items")).size());
+
+            release.countDown();
+            assertEquals(5, ((List<?>) cold.get(10, TimeUnit.SECONDS).get("items")).size());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static ParkAvailabilityProjection park(int parkId, int capacity, int occupiedSpace) {
+        ParkAvailabilityProjection projection = mock(ParkAvailabilityProjection.class);
+        when(projection.getParkId()).thenReturn(parkId);
+        when(projection.getParkName()).thenReturn("Park " + parkId);
+        when(projection.getCapacity()).thenReturn(capacity);
+        when(projection.getBaseCapacity()).thenReturn(capacity);
+        when(projection.getOccupiedSpace()).thenReturn(occupiedSpace);
+        return projection;
+    }
+
+    private static ParkCapacityAtDateProjection capacity(int parkId, int newCapacity) {
+        ParkCapacityAtDateProjection projection = mock(ParkCapacityAtDateProjection.class);
+        when(projection.getParkId()).thenReturn(parkId);
+        when(projection.getNewCapacity()).thenReturn(newCapacity);
+        return projection;
+    }
+}
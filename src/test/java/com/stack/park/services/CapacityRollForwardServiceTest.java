@@ -0,0 +1,183 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.stack.park.entities.JobWatermark;
+import com.stack.park.repositories.JobWatermarkRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Recalcul des capacités sur H2 : les paquets tournent dans leurs propres transactions, les données sont donc commitées
+ * (pas de @Transactional) et les tables vidées avant chaque test.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:rollforward;DB_CLOSE_ON_EXIT=FALSE",
+    "park.capacity-rollforward.cron=-"
+})
+@ActiveProfiles("test")
+class CapacityRollForwardServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 10);
+
+    @Autowired
+    private CapacityRollForwardService capacityRollForwardService;
+
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM park_capacity_change");
+        jdbcTemplate.update("DELETE FROM park");
+        jobWatermarkRepository.deleteAll();
+
+        JobWatermark watermark = new JobWatermark(CapacityRollForwardService.JOB_NAME);
+        watermark.setLastRunDate(TODAY.minusDays(1));
+        watermark.setLastRunAt(LocalDateTime.now());
+        watermark.setParksChecked(0);
+        watermark.setParksUpdated(0);
+        jobWatermarkRepository.save(watermark);
+    }
+
+    @Test
+    void rollForwardAppliesOnlyCrossedBoundariesAndAdvancesWatermark() {
+        // commence aujourd'hui, terminé hier, commencé avant-hier (déjà appliqué), commence demain
+        int starting = park("Starting", 100, 100);
+        change(starting, 500, TODAY, TODAY.plusDays(5));
+        int ended = park("Ended", 700, 200);
+        change(ended, 700, TODAY.minusDays(5), TODAY.minusDays(1));
+        int running = park("Running", 300, 50);
+        change(running, 300, TODAY.minusDays(2), TODAY.plusDays(2));
+        int future = park("Future", 100, 100);
+        change(future, 900, TODAY.plusDays(1), null);
+
+        Map<String, Object> report = capacityRollForwardService.rollForward(TODAY);
+
+        assertEquals(2, report.get("checked"));
+        assertEquals(2, report.get("updated"));
+        assertEquals(500, capacity(starting));
+        assertEquals(200, capacity(ended));
+        assertEquals(300, capacity(running));
+        assertEquals(100, capacity(future));
+        assertEquals(TODAY, jobWatermarkRepository.findById(CapacityRollForwardService.JOB_NAME).orElseThrow().getLastRunDate());
+
+        // même jour : le watermark arrête le passage avant toute lecture des changements
+        assertEquals(0, capacityRollForwardService.rollForward(TODAY).get("checked"));
+
+        // le lendemain, seul le park dont le changement commence est relu
+        Map<String, Object> nextDay = capacityRollForwardService.rollForward(TODAY.plusDays(1));
+        assertEquals(1, nextDay.get("checked"));
+        assertEquals(900, capacity(future));
+    }
+
+    @Test
+    void rollForwardIsNotBlockedByConcurrentOccupancyWrites() {
+        int parkId = park("Busy gate", 100, 100);
+        change(parkId, 500, TODAY, null);
+
+        // une entrée au portique passe entre la lecture et le batch UPDATE : occupation et version changent, pas la capacité
+        beforeCapacityUpdate(1, () -> jdbcTemplate.update(
+            "UPDATE park SET occupied_space = occupied_space + 1, version = version + 1 WHERE park_id = ?", parkId));
+
+        Map<String, Object> report = capacityRollForwardService.rollForward(TODAY);
+
+        assertEquals(1, report.get("updated"));
+        assertEquals(500, capacity(parkId));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT occupied_space FROM park WHERE park_id = ?", Integer.class, parkId));
+        assertEquals(TODAY, lastRunDate());
+    }
+
+    @Test
+    void rollForwardRetriesParksWhoseCapacityChangedConcurrently() {
+        int parkId = park("Concurrent", 100, 100);
+        change(parkId, 500, TODAY, null);
+        double skippedBefore = meterRegistry.counter("park.capacity.rollforward.parks", "result", "skipped").count();
+
+        // une écriture de capacité concurrente fait échouer le premier batch : le park est relu et recalculé
+        beforeCapacityUpdate(1, () -> jdbcTemplate.update("UPDATE park SET capacity = 450 WHERE park_id = ?", parkId));
+
+        Map<String, Object> report = capacityRollForwardService.rollForward(TODAY);
+
+        assertEquals(1, report.get("updated"));
+        assertEquals(500, capacity(parkId));
+        assertEquals(skippedBefore + 1, meterRegistry.counter("park.capacity.rollforward.parks", "result", "skipped").count());
+        assertEquals(TODAY, lastRunDate());
+    }
+
+    @Test
+    void rollForwardKeepsWatermarkWhileParksAreStillSkipped() {
+        int parkId = park("Always concurrent", 100, 100);
+        change(parkId, 500, TODAY, null);
+        AtomicInteger concurrentCapacity = new AtomicInteger(400);
+
+        // la capacité change avant chaque tentative
+        beforeCapacityUpdate(Integer.MAX_VALUE, () -> jdbcTemplate.update("UPDATE park SET capacity = ? WHERE park_id = ?",
+            concurrentCapacity.incrementAndGet(), parkId));
+
+        Map<String, Object> report = capacityRollForwardService.rollForward(TODAY);
+
+        assertEquals(0, report.get("updated"));
+        assertEquals(1, report.get("skipped"));
+        assertEquals(TODAY.minusDays(1), lastRunDate());
+    }
+
+    // exécute concurrentWrite juste avant les times premiers batchs UPDATE de capacité
+    private void beforeCapacityUpdate(int times, Runnable concurrentWrite) {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() <= times) {
+                concurrentWrite.run();
+            }
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).batchUpdate(startsWith("UPDATE park SET capacity"), ArgumentMatchers.<Collection<Object[]>>any(), anyInt(),
+            ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object[]>>any());
+    }
+
+    private LocalDate lastRunDate() {
+        return jobWatermarkRepository.findById(CapacityRollForwardService.JOB_NAME).orElseThrow().getLastRunDate();
+    }
+
+    private int park(String name, int capacity, int baseCapacity) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO park (park_name, capacity, base_capacity, occupied_space, version, created_date, last_modified_date) "
+            + "VALUES (?, ?, ?, 0, 0, ?, ?)", name, capacity, baseCapacity, now, now);
+        return jdbcTemplate.queryForObject("SELECT park_id FROM park WHERE park_name = ?", Integer.class, name);
+    }
+
+    private void change(int parkId, int newCapacity, LocalDate startDate, LocalDate endDate) {
+        jdbcTemplate.update("INSERT INTO park_capacity_change (park_id, new_capacity, start_date, end_date) VALUES (?, ?, ?, ?)",
+            parkId, newCapacity, Date.valueOf(startDate), endDate != null ? Date.valueOf(endDate) : null);
+    }
+
+    private int capacity(int parkId) {
+        return jdbcTemplate.queryForObject("SELECT capacity FROM park WHERE park_id = ?", Integer.class, parkId);
+    }
+}
@@ -0,0 +1,233 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.stack.park.dto.ParkOccupancyProjection;
+import com.stack.park.exceptions.OccupancyConflictException;
+import com.stack.park.repositories.ParkRepository;
+
+public class OccupancyServiceTest {
+
+    @Mock
+    private ParkRepository parkRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ParkCache parkCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OccupancyService occupancyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        ParkOccupancyProjection occupancy = occupancy(2, 1);
+        when(parkRepository.findOccupancyByParkId(1)).thenReturn(Optional.of(occupancy));
+    }
+
+    private static ParkOccupancyProjection occupancy(int capacity, int occupiedSpace) {
+        return new ParkOccupancyProjection() {
+            @Override
+            public Integer getParkId() {
+                return null;
+            }
+
+            @Override
+            public Integer getCapacity() {
+                return capacity;
+            }
+
+            @Override
+            public Integer getOccupiedSpace() {
+                return occupiedSpace;
+            }
+        };
+    }
+
+    @Test
+    void testEntryCannotExceedCapacity() {
+        assertEquals(2, occupancyService.recordEntry(1, 1).get("occupiedSpace"));
+
+        OccupancyConflictException thrown = assertThrows(OccupancyConflictException.class, () -> {
+            occupancyService.recordEntry(1, 1);
+        });
+        assertEquals("Park is full", thrown.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushWritesNetDeltaOnce() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] { { 1 } });
+        occupancyService.recordEntry(1, 1);
+        occupancyService.recordExit(1, 1);
+        occupancyService.recordExit(1, 1);
+
+        occupancyService.flush();
+        occupancyService.flush(); // plus rien en attente
+
+        ArgumentCaptor<Collection<int[]>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), deltas.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertArrayEquals(new int[] { 1, -1 }, deltas.getValue().iterator().next());
+        assertEquals(0, occupancyService.getLiveOccupiedSpace(1)); // le compteur est gardé après l'écriture
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConcurrentReleaseLosesNoDelta() throws Exception {
+        // base simulée : les deltas écrits y sont appliqués, un compteur rechargé lit sa valeur courante
+        AtomicInteger stored = new AtomicInteger(500);
+        when(parkRepository.findOccupancyByParkId(2)).thenAnswer(invocation -> Optional.of(occupancy(1000, stored.get())));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocation -> {
+                Collection<int[]> deltas = invocation.getArgument(1);
+                Thread.sleep(1); // un compteur rechargé pendant l'écriture lirait l'ancienne valeur
+                int[] counts = new int[deltas.size()];
+                int index = 0;
+                for (int[] delta : deltas) {
+                    stored.addAndGet(delta[1]);
+                    counts[index++] = 1;
+                }
+                return new int[][] { counts };
+            });
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> vehicles = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int direction = thread % 2 == 0 ? 1 : -1;
+                vehicles.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        try {
+                            if (direction > 0) {
+                                occupancyService.recordEntry(2, 1);
+                            } else {
+                                occupancyService.recordExit(2, 1);
+                            }
+                            accepted.addAndGet(direction);
+                        } catch (OccupancyConflictException ex) {
+                            // park plein ou vide : rien n'est compté
+                        }
+                    }
+                }));
+            }
+            Future<?> releases = executor.submit(() -> {
+                while (!done.get()) {
+                    occupancyService.release(2);
+                    occupancyService.flush();
+                }
+            });
+            for (Future<?> vehicle : vehicles) {
+                vehicle.get(30, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            releases.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        occupancyService.flush();
+
+        assertEquals(500 + accepted.get(), stored.get());
+        Integer live = occupancyService.getLiveOccupiedSpace(2);
+        if (live != null) {
+            assertEquals(stored.get(), live); // un compteur rechargé trop tôt aurait manqué un delta
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReleaseRetiredAgainAfterRollbackMakesEntriesWait() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] { { 1 } });
+        occupancyService.recordEntry(1, 1);
+
+        // premier retrait annulé avec sa transaction : le compteur est rétabli
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            occupancyService.release(1);
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2, occupancyService.getLiveOccupiedSpace(1));
+
+        // second retrait du même compteur, pas encore commité : une sortie doit attendre sans tourner en boucle
+        List<TransactionSynchronization> synchronizations;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            occupancyService.release(1);
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        CompletableFuture<Thread> worker = new CompletableFuture<>();
+        CompletableFuture<Object> exit = CompletableFuture.supplyAsync(() -> {
+            worker.complete(Thread.currentThread());
+            return occupancyService.recordExit(1, 1).get("occupiedSpace");
+        });
+        Thread thread = worker.get(5, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+        assertFalse(exit.isDone());
+
+        // le commit enlève le compteur : la sortie recharge l'occupation depuis la base
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(0, exit.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExitCannotGoBelowZero() {
+        assertEquals(0, occupancyService.recordExit(1, 1).get("occupiedSpace"));
+
+        assertThrows(OccupancyConflictException.class, () -> {
+            occupancyService.recordExit(1, 1);
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import com.stack.park.dto.OccupancySyncRecord;
+import com.stack.park.dto.ParkSensorSequenceProjection;
+import com.stack.park.repositories.ParkRepository;
+
+public class OccupancySyncServiceTest {
+
+    @Mock
+    private ParkRepository parkRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private OccupancyService occupancyService;
+
+    @Mock
+    private ParkCache parkCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OccupancySyncService occupancySyncService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSync_CoalescesPerParkAndDropsAppliedSequences() {
+        // park 1 : séquence 2 déjà appliquée, la séquence 3 est envoyée deux fois ; park 2 : rien d'appliqué ; park 9 : inconnu
+        List<ParkSensorSequenceProjection> sequences = List.of(sequence(1, 2L), sequence(2, null));
+        when(parkRepository.findSensorSequenceByParkIds(anyCollection())).thenReturn(sequences);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] { { 1, 1 } });
+
+        Map<String, Object> report = occupancySyncService.sync(List.of(
+            record(1, 5, 1), record(1, 1, 2), record(1, -2, 3), record(1, -2, 3), record(1, 4, 4),
+            record(2, 3, 0), record(2, 1, 1),
+            record(9, 1, 1)));
+
+        ArgumentCaptor<Collection<Object[]>> updates = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        List<Object[]> rows = new ArrayList<>(updates.getValue());
+        assertEquals(2, rows.size());
+        // { parkId, delta net, nouvelle séquence, séquence lue }
+        assertArrayEquals(new Object[] { 1, 2, 4L, 2L }, rows.get(0));
+        assertArrayEquals(new Object[] { 2, 4, 1L, -1L }, rows.get(1));
+
+        assertEquals(8, report.get("received"));
+        assertEquals(3, report.get("duplicates"));
+        assertEquals(2, report.get("applied"));
+        List<Map<String, Object>> parks = (List<Map<String, Object>>) report.get("parks");
+        assertEquals("applied", parks.get(0).get("status"));
+        assertEquals("not_found", parks.get(2).get("status"));
+        verify(occupancyService).releaseAll(List.of(1, 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSync_RetriedBatchIsNotAppliedTwice() {
+        List<ParkSensorSequenceProjection> sequences = List.of(sequence(1, 2L));
+        when(parkRepository.findSensorSequenceByParkIds(anyCollection())).thenReturn(sequences);
+
+        Map<String, Object> report = occupancySyncService.sync(List.of(record(1, 5, 1), record(1, 1, 2)));
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0, report.get("applied"));
+        assertEquals("duplicate", ((List<Map<String, Object>>) report.get("parks")).get(0).get("status"));
+    }
+
+    @Test
+    void testSync_IncompleteRecordIsRejected() {
+        OccupancySyncRecord incomplete = record(1, 1, 1);
+        incomplete.setSequence(null);
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            occupancySyncService.sync(List.of(record(1, 1, 0), incomplete));
+        });
+        assertEquals("Record 1: parkId, delta and sequence are mandatory", thrown.getMessage());
+    }
+
+    private static OccupancySyncRecord record(int parkId, int delta, long sequence) {
+        OccupancySyncRecord record = new OccupancySyncRecord();
+        record.setParkId(parkId);
+        record.setDelta(delta);
+        record.setSequence(sequence);
+        return record;
+    }
+
+    private static ParkSensorSequenceProjection sequence(Integer parkId, Long lastSequence) {
+        ParkSensorSequenceProjection projection = mock(ParkSensorSequenceProjection.class);
+        when(projection.getParkId()).thenReturn(parkId);
+        when(projection.getLastSensorSequence()).thenReturn(lastSequence);
+        return projection;
+    }
+}
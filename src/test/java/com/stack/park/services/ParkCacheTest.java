@@ -0,0 +1,103 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.stack.park.entities.Park;
+import com.stack.park.timeline.CapacityTimeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ParkCacheTest {
+
+    private ParkCache parkCache;
+
+    // état "en base" relu par le loader, et nombre de lectures
+    private Park stored;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        parkCache = new ParkCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        stored = park(100);
+        loads.set(0);
+    }
+
+    @Test
+    void testGetPark_ReturnsDetachedCopies() {
+        Park first = read();
+        first.setCapacity(1); // une modification par l'appelant ne doit pas atteindre le cache
+
+        Park second = read();
+        assertEquals(100, second.getCapacity());
+        assertNotSame(first, second);
+        assertNotSame(stored, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidate_ReadAfterWriteSeesNewState() {
+        read();
+        parkCache.getTimeline(1, id -> CapacityTimeline.of(List.of()));
+
+        stored = park(200);
+        parkCache.invalidate(1);
+
+        assertEquals(200, read().getCapacity());
+        assertEquals(2, loads.get());
+        // l'index est invalidé avec le park
+        AtomicInteger timelineLoads = new AtomicInteger();
+        parkCache.getTimeline(1, id -> {
+            timelineLoads.incrementAndGet();
+            return CapacityTimeline.of(List.of());
+        });
+        assertEquals(1, timelineLoads.get());
+    }
+
+    @Test
+    void testInvalidate_InTransactionEvictsAgainAfterCommit() {
+        read();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            parkCache.invalidate(1);
+            // une lecture concurrente, avant le commit, remet en cache l'état d'avant la modification
+            assertEquals(100, read().getCapacity());
+            stored = park(200);
+            assertEquals(100, read().getCapacity());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // l'éviction rejouée au commit retire l'état périmé
+        assertEquals(200, read().getCapacity());
+        assertEquals(3, loads.get());
+    }
+
+    private Park read() {
+        return parkCache.getPark(1, id -> {
+            loads.incrementAndGet();
+            return stored;
+        });
+    }
+
+    private static Park park(int capacity) {
+        Park park = new Park();
+        park.setParkId(1);
+        park.setParkName("Cached park");
+        park.setCapacity(capacity);
+        park.setOccupiedSpace(0);
+        return park;
+    }
+}
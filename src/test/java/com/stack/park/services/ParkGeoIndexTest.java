@@ -0,0 +1,29 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ParkGeoIndexTest {
+
+    private final ParkGeoIndex parkGeoIndex = new ParkGeoIndex(0.05);
+
+    @Test
+    void testFindNearest_MaxDistanceAboveCapIsRejected() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            parkGeoIndex.findNearest(48.85, 2.35, 10, 1, ParkGeoIndex.MAX_DISTANCE_KM + 1);
+        });
+        assertEquals("maxDistanceKm must be greater than zero and at most 200", thrown.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> parkGeoIndex.findNearest(48.85, 2.35, 10, 1, Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> parkGeoIndex.findNearest(48.85, 2.35, 10, 1, Double.NaN));
+    }
+
+    @Test
+    void testFindNearest_MaxDistanceAtCapIsAccepted() {
+        // grille vide : la recherche parcourt tous les anneaux jusqu'à la borne sans rien trouver
+        assertTrue(parkGeoIndex.findNearest(48.85, 2.35, 10, 1, ParkGeoIndex.MAX_DISTANCE_KM).isEmpty());
+    }
+}
@@ -0,0 +1,168 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Import en masse sur H2 : les lignes passent par JDBC sans la validation de l'entité, chaque règle est donc vérifiée ici.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:import;DB_CLOSE_ON_EXIT=FALSE",
+    "park.capacity-rollforward.cron=-"
+})
+@ActiveProfiles("test")
+@Transactional // chaque test est annulé à la fin
+class ParkImportServiceTest {
+
+    @Autowired
+    private ParkImportService parkImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsvReportsEachInvalidLineAndInsertsTheOthers() throws Exception {
+        park("Existing park", 100);
+        String csv = String.join("\n",
+            "capacity, parkName ,latitude,longitude,occupiedSpace", // colonnes dans n'importe quel ordre
+            "100,\"North, Gate\",48.85,2.35,10",
+            "50,South Gate,,,",
+            "",
+            "20,North Gate,,,0",       // ligne 5 : nom différent de "North, Gate"
+            "30,South Gate,,,0",       // ligne 6 : déjà dans le fichier
+            "40,Existing park,,,0",    // ligne 7 : déjà en base
+            "10,Too full,,,11",        // ligne 8
+            "ten,Not a number,,,0",    // ligne 9
+            "10,Half located,48.85,,0" // ligne 10
+        );
+
+        Map<String, Object> report = parkImportService.importCsv(stream(csv));
+
+        assertEquals(3, report.get("imported"));
+        assertEquals(5, report.get("rejected"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(List.of(6, 7, 8, 9, 10), errors.stream().map(error -> error.get("line")).toList());
+        assertEquals("Park name is duplicated in the file", errors.get(0).get("message"));
+        assertEquals("Park with the same name already exists", errors.get(1).get("message"));
+        assertEquals("Occupied space cannot exceed capacity", errors.get(2).get("message"));
+        assertEquals("capacity must be a number", errors.get(3).get("message"));
+        assertEquals("latitude and longitude must be given together", errors.get(4).get("message"));
+
+        Map<String, Object> northGate = jdbcTemplate.queryForMap(
+            "SELECT capacity, base_capacity, occupied_space, latitude FROM park WHERE park_name = 'North, Gate'");
+        assertEquals(100, northGate.get("CAPACITY"));
+        assertEquals(100, northGate.get("BASE_CAPACITY"));
+        assertEquals(10, northGate.get("OCCUPIED_SPACE"));
+        assertEquals(48.85, northGate.get("LATITUDE"));
+        Map<String, Object> southGate = jdbcTemplate.queryForMap("SELECT occupied_space, latitude FROM park WHERE park_name = 'South Gate'");
+        assertEquals(0, southGate.get("OCCUPIED_SPACE"));
+        assertNull(southGate.get("LATITUDE"));
+    }
+
+    @Test
+    void importCsvWithoutMandatoryColumnsIsRejected() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            parkImportService.importCsv(stream("name,capacity\nA park,10"));
+        });
+        assertEquals("CSV header must contain parkName and capacity", thrown.getMessage());
+        assertEquals(0, count("SELECT COUNT(*) FROM park"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importNdjsonReportsInvalidJsonAndValidationErrorsByLine() throws Exception {
+        String ndjson = String.join("\n",
+            "{\"parkName\":\"East Gate\",\"capacity\":80,\"occupiedSpace\":5}",
+            "{\"parkName\":\"Broken\",",
+            "{\"parkName\":\"Negative\",\"capacity\":10,\"occupiedSpace\":-1}",
+            "{\"parkName\":\"East Gate\",\"capacity\":90}");
+
+        Map<String, Object> report = parkImportService.importNdjson(stream(ndjson));
+
+        assertEquals(1, report.get("imported"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(List.of(2, 3, 4), errors.stream().map(error -> error.get("line")).toList());
+        assertEquals("Occupied space cannot be negative", errors.get(1).get("message"));
+        assertEquals("Park name is duplicated in the file", errors.get(2).get("message"));
+        assertEquals(80, count("SELECT capacity FROM park WHERE park_name = 'East Gate'"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importScheduleMergesOverlappingRowsIntoExistingScheduleAndRecomputesCapacity() throws Exception {
+        LocalDate today = LocalDate.now();
+        int parkId = park("Scheduled park", 100);
+        jdbcTemplate.update("INSERT INTO park_capacity_change (park_id, new_capacity, start_date, end_date) VALUES (?, 200, ?, ?)",
+            parkId, Date.valueOf(today.minusDays(10)), Date.valueOf(today.plusDays(10)));
+        jdbcTemplate.update("UPDATE park SET capacity = 200 WHERE park_id = ?", parkId);
+
+        // la seconde ligne recouvre la fin de la première : la dernière ligne du fichier l'emporte
+        String csv = String.join("\n",
+            "parkId,newCapacity,startDate,endDate",
+            parkId + ",300," + today.minusDays(5) + "," + today.plusDays(5),
+            parkId + ",400," + today.plusDays(3) + "," + today.plusDays(20),
+            "999999,500," + today + ",",
+            parkId + ",600,not-a-date,");
+
+        Map<String, Object> report = parkImportService.importScheduleCsv(stream(csv));
+
+        assertEquals(2, report.get("applied"));
+        assertEquals(1, report.get("parks"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(List.of(4, 5), errors.stream().map(error -> error.get("line")).toList());
+        assertEquals("Park not found with id: 999999", errors.get(0).get("message"));
+
+        List<Map<String, Object>> changes = jdbcTemplate.queryForList(
+            "SELECT new_capacity, start_date, end_date FROM park_capacity_change WHERE park_id = ? ORDER BY start_date", parkId);
+        assertEquals(3, changes.size());
+        assertChange(changes.get(0), 200, today.minusDays(10), today.minusDays(6));
+        assertChange(changes.get(1), 300, today.minusDays(5), today.plusDays(2));
+        assertChange(changes.get(2), 400, today.plusDays(3), today.plusDays(20));
+
+        // capacité du jour recalculée, capacité par défaut conservée, version incrémentée
+        Map<String, Object> park = jdbcTemplate.queryForMap("SELECT capacity, base_capacity, version FROM park WHERE park_id = ?", parkId);
+        assertEquals(300, park.get("CAPACITY"));
+        assertEquals(100, park.get("BASE_CAPACITY"));
+        assertEquals(1L, ((Number) park.get("VERSION")).longValue());
+    }
+
+    private static void assertChange(Map<String, Object> change, int newCapacity, LocalDate startDate, LocalDate endDate) {
+        assertEquals(newCapacity, change.get("NEW_CAPACITY"));
+        assertEquals(startDate, ((Date) change.get("START_DATE")).toLocalDate());
+        assertEquals(endDate, ((Date) change.get("END_DATE")).toLocalDate());
+    }
+
+    private int park(String name, int capacity) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO park (park_name, capacity, base_capacity, occupied_space, version, created_date, last_modified_date) "
+            + "VALUES (?, ?, ?, 0, 0, ?, ?)", name, capacity, capacity, now, now);
+        return count("SELECT park_id FROM park WHERE park_name = '" + name + "'");
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import com.stack.park.dto.ParkCapacityProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.repositories.ParkRepository;
+
+public class ParkNameIndexTest {
+
+    @Mock
+    private ParkRepository parkRepository;
+
+    @InjectMocks
+    private ParkNameIndex parkNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        List<ParkCapacityProjection> parks = List.of(park(1, "Parc de l'Étoile", 100), park(2, "parc Monceau", 50),
+            park(3, "Parcelle Nord", 20), park(4, "Gare Sud", 80), park(5, "ETOILE", 30));
+        when(parkRepository.findNamePage(anyInt(), any(Limit.class))).thenReturn(parks);
+        parkNameIndex.load();
+    }
+
+    @Test
+    void testFindByPrefix_IgnoresCaseAndAccents() {
+        assertEquals(List.of(1), parkIds(parkNameIndex.findByPrefix("PARC DE", 10)));
+        assertEquals(List.of(1, 2, 3), parkIds(parkNameIndex.findByPrefix("parc", 10)));
+        assertEquals(List.of(1, 2), parkIds(parkNameIndex.findByPrefix("parc ", 10)));
+        assertEquals(List.of(5), parkIds(parkNameIndex.findByPrefix("étoi", 10)));
+        assertEquals(List.of(1), parkIds(parkNameIndex.findByPrefix("parc", 1)));
+
+        Map<String, Object> first = parkNameIndex.findByPrefix("parc de l'e", 10).get(0);
+        assertEquals("Parc de l'Étoile", first.get("parkName"));
+        assertEquals(100, first.get("capacity"));
+    }
+
+    @Test
+    void testRefresh_AppliesRenameAndDelete() {
+        List<ParkCapacityProjection> changed = List.of(park(2, "Square Monceau", 60));
+        when(parkRepository.findNameByParkIds(anyCollection())).thenReturn(changed);
+        parkNameIndex.onParkChanged(new ParkChangedEvent(2, ParkChangedEvent.Type.UPDATED));
+        parkNameIndex.onParkChanged(new ParkChangedEvent(3, ParkChangedEvent.Type.DELETED));
+        parkNameIndex.refresh();
+
+        verify(parkRepository).findNameByParkIds(List.of(2, 3));
+        assertEquals(List.of(1), parkIds(parkNameIndex.findByPrefix("parc", 10)));
+        assertEquals(60, parkNameIndex.findByPrefix("squ", 10).get(0).get("capacity"));
+        assertEquals(4, parkNameIndex.size());
+    }
+
+    @Test
+    void testFindByPrefix_BlankPrefixIsRejected() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            parkNameIndex.findByPrefix(" ", 10);
+        });
+        assertEquals("prefix is mandatory", thrown.getMessage());
+    }
+
+    private static List<Object> parkIds(List<Map<String, Object>> results) {
+        return results.stream().map(result -> result.get("parkId")).toList();
+    }
+
+    private static ParkCapacityProjection park(int parkId, String parkName, int capacity) {
+        ParkCapacityProjection projection = mock(ParkCapacityProjection.class);
+        when(projection.getParkId()).thenReturn(parkId);
+        when(projection.getParkName()).thenReturn(parkName);
+        when(projection.getCapacity()).thenReturn(capacity);
+        return projection;
+    }
+}
@@ -1,9 +1,14 @@
 package com.stack.park.services;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -14,11 +19,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.stack.park.entities.Park;
+import com.stack.park.entities.ParkCapacityChange;
+import com.stack.park.repositories.ParkCapacityChangeRepository;
 import com.stack.park.repositories.ParkRepository;
 
 
@@ -30,6 +39,21 @@ public class ParkServiceTest {
     @Mock // permettant de simuler leur comportement. au lieu d'utilisé une véritable instance qui pourrait impliquer des opérations sur une base de données
     private ParkRepository parkRepository;
 
+    @Mock
+    private ParkCapacityChangeRepository parkCapacityChangeRepository;
+
+    @Mock
+    private ParkCache parkCache;
+
+    @Mock
+    private OccupancyService occupancyService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ParkMetrics parkMetrics;
+
     @InjectMocks // pour créer l'instance de la classe à tester et injecter les mocks dans cette instance
     private ParkService parkService;
 
@@ -78,7 +102,126 @@ public class ParkServiceTest {
         assertEquals("Park with the same name already exists", exception.getMessage());
     }
 
+    @Test
+    void testGetCapacitiesAtDatesReportsUnknownParks() {
+        ParkCapacityChange change = new ParkCapacityChange();
+        change.setPark(park);
+        change.setNewCapacity(500);
+        change.setStartDate(LocalDate.of(2024, 1, 1));
+        change.setEndDate(LocalDate.of(2024, 1, 31));
+
+        when(parkRepository.findAllById(any())).thenReturn(List.of(park));
+        when(parkCapacityChangeRepository.findByParkIdsBetweenDates(any(), any(), any())).thenReturn(List.of(change));
+
+        List<Map<String, Object>> results = parkService.getCapacitiesAtDates(Set.of(1, 99), Set.of(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 2, 15)));
+
+        assertEquals(3, results.size()); // 2 dates pour le park 1, une ligne d'erreur pour le park 99
+        assertEquals(500, results.get(0).get("capacity"));
+        assertEquals(40000, results.get(1).get("capacity"));
+        assertEquals("Park not found with id: 99", results.get(2).get("message"));
+    }
 
+    @Test
+    void testUpdateParkKeepingItsOwnName() {
+        park.setVersion(3L);
+        when(parkRepository.findById(1)).thenReturn(Optional.of(park));
+        when(parkRepository.findByParkName(any(String.class))).thenReturn(Optional.of(park)); // le nom appartient au park mis à jour
+        when(parkRepository.save(any(Park.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Park update = new Park();
+        update.setParkName(park.getParkName());
+        update.setCapacity(45000);
+        update.setOccupiedSpace(2000);
+        update.setVersion(3L);
+
+        Park updatedPark = parkService.updateById(update, 1);
+        assertEquals(45000, (int) updatedPark.getCapacity());
+    }
 
+    @Test
+    void testUpdateParkDuringScheduledChangeKeepsDefaultCapacity() {
+        park.setBaseCapacity(40000);
+        park.setCapacity(500); // changement planifié en cours
+        park.setOccupiedSpace(100);
+        ParkCapacityChange current = new ParkCapacityChange();
+        current.setPark(park);
+        current.setNewCapacity(500);
+        current.setStartDate(LocalDate.now().minusDays(1));
+        current.setEndDate(LocalDate.now().plusDays(1));
+        when(parkRepository.findById(1)).thenReturn(Optional.of(park));
+        when(parkRepository.findByParkName(any(String.class))).thenReturn(Optional.empty());
+        when(parkCapacityChangeRepository.findByParkIdsBetweenDates(any(), any(), any())).thenReturn(List.of(current));
+        when(parkRepository.save(any(Park.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // GET puis PUT pour renommer : le client renvoie la capacité planifiée
+        Park update = new Park();
+        update.setParkName("Renamed park");
+        update.setCapacity(500);
+        update.setOccupiedSpace(100);
+
+        Park updatedPark = parkService.updateById(update, 1);
+        assertEquals("Renamed park", updatedPark.getParkName());
+        assertEquals(500, (int) updatedPark.getCapacity());
+        assertEquals(40000, (int) updatedPark.getDefaultCapacity());
+    }
+
+    @Test
+    void testUpdateParkWithStaleVersion() {
+        park.setVersion(4L);
+        when(parkRepository.findById(1)).thenReturn(Optional.of(park));
+        when(parkRepository.findByParkName(any(String.class))).thenReturn(Optional.empty());
+
+        Park update = new Park();
+        update.setParkName("Renamed park");
+        update.setCapacity(45000);
+        update.setOccupiedSpace(2000);
+        update.setVersion(3L); // lu avant une écriture concurrente
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> {
+            parkService.updateById(update, 1);
+        });
+    }
 
+    @Test
+    void testAddCapacityChangeSplitsEveryOverlap() {
+        ParkCapacityChange first = new ParkCapacityChange();
+        first.setId(1);
+        first.setPark(park);
+        first.setNewCapacity(100);
+        first.setStartDate(LocalDate.of(2024, 1, 1));
+        first.setEndDate(LocalDate.of(2024, 1, 10));
+
+        ParkCapacityChange second = new ParkCapacityChange();
+        second.setId(2);
+        second.setPark(park);
+        second.setNewCapacity(200);
+        second.setStartDate(LocalDate.of(2024, 1, 11));
+        second.setEndDate(LocalDate.of(2024, 1, 20));
+
+        ParkCapacityChange third = new ParkCapacityChange();
+        third.setId(3);
+        third.setPark(park);
+        third.setNewCapacity(300);
+        third.setStartDate(LocalDate.of(2024, 1, 21));
+        third.setEndDate(LocalDate.of(2024, 1, 31));
+
+        when(parkRepository.findById(1)).thenReturn(Optional.of(park));
+        when(parkCapacityChangeRepository.findByParkIdsBetweenDates(any(), any(), any()))
+            .thenReturn(List.of(first, second, third)) // changements qui chevauchent la nouvelle période
+            .thenReturn(List.of()); // aucun changement aujourd'hui
+
+        ParkCapacityChange newChange = new ParkCapacityChange();
+        newChange.setNewCapacity(999);
+        newChange.setStartDate(LocalDate.of(2024, 1, 5));
+        newChange.setEndDate(LocalDate.of(2024, 1, 25));
+
+        Park updatedPark = parkService.addCapacityChange(1, newChange);
+
+        // l'ancien code ne traitait que le premier chevauchement
+        assertEquals(LocalDate.of(2024, 1, 4), first.getEndDate());
+        assertEquals(LocalDate.of(2024, 1, 26), third.getStartDate());
+        verify(parkCapacityChangeRepository).deleteAll(Set.of(second));
+        verify(parkCapacityChangeRepository).saveAll(Set.of(newChange));
+        assertEquals(40000, (int) updatedPark.getCapacity());
+    }
 }
@@ -0,0 +1,136 @@
+package com.stack.park.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.stack.park.dto.ParkOccupancyProjection;
+import com.stack.park.events.ParkChangedEvent;
+import com.stack.park.exceptions.NotFoundException;
+import com.stack.park.repositories.ParkRepository;
+
+public class ParkUpdatePublisherTest {
+
+    @Mock
+    private ParkRepository parkRepository;
+
+    @Mock
+    private OccupancyService occupancyService;
+
+    private ParkUpdatePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        publisher = new ParkUpdatePublisher(60000, 10000);
+        ReflectionTestUtils.setField(publisher, "parkRepository", parkRepository);
+        ReflectionTestUtils.setField(publisher, "occupancyService", occupancyService);
+
+        ParkOccupancyProjection occupancy = mock(ParkOccupancyProjection.class);
+        when(occupancy.getParkId()).thenReturn(1);
+        when(occupancy.getCapacity()).thenReturn(100);
+        when(occupancy.getOccupiedSpace()).thenReturn(10);
+        when(parkRepository.findOccupancyByParkId(1)).thenReturn(Optional.of(occupancy));
+        when(parkRepository.findOccupancyByParkIds(any())).thenReturn(List.of(occupancy));
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void testChangesAreReadOnceForAllSubscribers() {
+        publisher.subscribe(1);
+        publisher.subscribe(1);
+        assertEquals(2, publisher.getSubscriberCount());
+
+        // plusieurs changements du même park avant le passage du dispatcher : une seule relecture
+        publisher.onParkChanged(new ParkChangedEvent(1, ParkChangedEvent.Type.OCCUPANCY));
+        publisher.onParkChanged(new ParkChangedEvent(1, ParkChangedEvent.Type.CAPACITY));
+        publisher.dispatch();
+        publisher.dispatch();
+
+        verify(parkRepository, times(1)).findOccupancyByParkIds(any());
+    }
+
+    @Test
+    void testParksWithoutSubscribersAreIgnored() {
+        publisher.onParkChanged(new ParkChangedEvent(2, ParkChangedEvent.Type.UPDATED));
+        publisher.dispatch();
+
+        verify(parkRepository, never()).findOccupancyByParkIds(any());
+    }
+
+    @Test
+    void testStalledClientDoesNotDelayOthersAndIsDropped() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch fastReceived = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        ParkUpdatePublisher slowAware = new ParkUpdatePublisher(60000, 50) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                // premier client : socket qui ne se vide plus, second client : reçoit normalement
+                boolean stalled = created.getAndIncrement() == 0;
+                return new SseEmitter(timeoutMillis) {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        if (stalled) {
+                            try {
+                                unblock.await();
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                            throw new IOException("Broken pipe");
+                        }
+                        fastReceived.countDown();
+                    }
+                };
+            }
+        };
+        ReflectionTestUtils.setField(slowAware, "parkRepository", parkRepository);
+        ReflectionTestUtils.setField(slowAware, "occupancyService", occupancyService);
+        try {
+            slowAware.subscribe(1);
+            slowAware.subscribe(1);
+
+            // l'état initial arrive au second client pendant que l'envoi au premier est bloqué
+            assertTrue(fastReceived.await(5, TimeUnit.SECONDS));
+
+            Thread.sleep(100);
+            slowAware.heartbeat();
+            assertEquals(1, slowAware.getSubscriberCount());
+        } finally {
+            unblock.countDown();
+            slowAware.shutdown();
+        }
+    }
+
+    @Test
+    void testSubscribeToUnknownPark() {
+        when(parkRepository.findOccupancyByParkId(3)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> publisher.subscribe(3));
+    }
+}
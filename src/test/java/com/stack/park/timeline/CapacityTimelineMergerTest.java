@@ -0,0 +1,72 @@
+package com.stack.park.timeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.stack.park.entities.ParkCapacityChange;
+
+public class CapacityTimelineMergerTest {
+
+    private static ParkCapacityChange change(Integer id, String start, String end, int capacity) {
+        ParkCapacityChange change = new ParkCapacityChange();
+        change.setId(id);
+        change.setStartDate(LocalDate.parse(start));
+        change.setEndDate(end != null ? LocalDate.parse(end) : null);
+        change.setNewCapacity(capacity);
+        return change;
+    }
+
+    @Test
+    void testMergeCoveringSeveralChanges() {
+        ParkCapacityChange first = change(1, "2024-01-01", "2024-01-10", 100);
+        ParkCapacityChange second = change(2, "2024-01-11", "2024-01-20", 200);
+        ParkCapacityChange third = change(3, "2024-01-21", "2024-01-31", 300);
+        CapacityTimelineMerger merger = new CapacityTimelineMerger(List.of(first, second, third));
+
+        // chevauche la fin du premier, tout le deuxième et le début du troisième
+        ParkCapacityChange newChange = change(null, "2024-01-05", "2024-01-25", 999);
+        merger.merge(newChange);
+
+        assertEquals(LocalDate.parse("2024-01-04"), first.getEndDate());
+        assertEquals(LocalDate.parse("2024-01-26"), third.getStartDate());
+        assertEquals(List.of(first, newChange, third), List.copyOf(merger.getChanges()));
+
+        assertEquals(List.of(newChange), List.copyOf(merger.getInserted()));
+        assertEquals(List.of(first, third), List.copyOf(merger.getUpdated()));
+        assertEquals(List.of(second), List.copyOf(merger.getDeleted()));
+        assertEquals(2, merger.getSplits());
+    }
+
+    @Test
+    void testMergeInsideOneChangeSplitsIt() {
+        ParkCapacityChange existing = change(1, "2024-01-01", null, 100);
+        CapacityTimelineMerger merger = new CapacityTimelineMerger(List.of(existing));
+
+        merger.merge(change(null, "2024-02-01", "2024-02-29", 50));
+
+        CapacityTimeline timeline = merger.toTimeline();
+        assertEquals(100, (int) timeline.capacityAt(LocalDate.parse("2024-01-31"), 0));
+        assertEquals(50, (int) timeline.capacityAt(LocalDate.parse("2024-02-15"), 0));
+        assertEquals(100, (int) timeline.capacityAt(LocalDate.parse("2030-01-01"), 0)); // la partie après reste sans fin
+        assertEquals(2, merger.getInserted().size()); // le nouveau changement + la partie après
+        assertTrue(merger.getDeleted().isEmpty());
+    }
+
+    @Test
+    void testLaterMergeOfAnInsertedChangeIsNotWrittenAsUpdate() {
+        CapacityTimelineMerger merger = new CapacityTimelineMerger(List.of());
+
+        ParkCapacityChange january = change(null, "2024-01-01", "2024-01-31", 100);
+        merger.merge(january);
+        merger.merge(change(null, "2024-01-01", "2024-01-31", 200)); // remplace la ligne pas encore insérée
+
+        assertEquals(1, merger.getInserted().size());
+        assertTrue(merger.getUpdated().isEmpty());
+        assertTrue(merger.getDeleted().isEmpty());
+    }
+}
@@ -0,0 +1,60 @@
+package com.stack.park.timeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.stack.park.entities.ParkCapacityChange;
+
+public class CapacityTimelineTest {
+
+    private static ParkCapacityChange change(String start, String end, int capacity) {
+        ParkCapacityChange change = new ParkCapacityChange();
+        change.setStartDate(LocalDate.parse(start));
+        change.setEndDate(end != null ? LocalDate.parse(end) : null);
+        change.setNewCapacity(capacity);
+        return change;
+    }
+
+    @Test
+    void testCapacityAtDate() {
+        CapacityTimeline timeline = CapacityTimeline.of(List.of(
+                change("2024-01-01", "2024-01-31", 100),
+                change("2024-03-01", null, 300)));
+
+        assertEquals(100, timeline.capacityAt(LocalDate.parse("2024-01-01"), 50)); // borne de début incluse
+        assertEquals(100, timeline.capacityAt(LocalDate.parse("2024-01-31"), 50)); // borne de fin incluse
+        assertEquals(50, timeline.capacityAt(LocalDate.parse("2024-02-15"), 50)); // aucun changement -> capacité par défaut
+        assertEquals(300, timeline.capacityAt(LocalDate.parse("2030-01-01"), 50)); // endDate null = sans fin
+        assertTrue(timeline.capacityAt(LocalDate.parse("2023-12-31")).isEmpty());
+    }
+
+    @Test
+    void testIntervalsBetweenWalksChangeBoundaries() {
+        CapacityTimeline timeline = CapacityTimeline.of(List.of(
+                change("2024-01-10", "2024-01-19", 100),
+                change("2024-01-20", "2024-01-25", 100),
+                change("2024-02-01", null, 300)));
+
+        List<CapacityTimeline.Interval> intervals = timeline.intervalsBetween(LocalDate.parse("2024-01-01"), LocalDate.parse("2024-02-05"), 50);
+
+        assertEquals(List.of(
+                new CapacityTimeline.Interval(LocalDate.parse("2024-01-01"), LocalDate.parse("2024-01-09"), 50),
+                new CapacityTimeline.Interval(LocalDate.parse("2024-01-10"), LocalDate.parse("2024-01-25"), 100), // intervalles contigus de même capacité fusionnés
+                new CapacityTimeline.Interval(LocalDate.parse("2024-01-26"), LocalDate.parse("2024-01-31"), 50),
+                new CapacityTimeline.Interval(LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05"), 300)),
+                intervals);
+    }
+
+    @Test
+    void testIntervalsBetweenSingleDay() {
+        CapacityTimeline timeline = CapacityTimeline.of(List.of(change("2024-01-01", null, 100)));
+
+        assertEquals(List.of(new CapacityTimeline.Interval(LocalDate.parse("2024-03-01"), LocalDate.parse("2024-03-01"), 100)),
+                timeline.intervalsBetween(LocalDate.parse("2024-03-01"), LocalDate.parse("2024-03-01"), 50));
+    }
+}